@@ -12,4 +12,406 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final WordImport wordImport = new WordImport();
+
+    private final SearchOutbox searchOutbox = new SearchOutbox();
+
+    private final Reindex reindex = new Reindex();
+
+    private final Search search = new Search();
+
+    private final Lucene lucene = new Lucene();
+
+    private final Consistency consistency = new Consistency();
+
+    private final Cache cache = new Cache();
+
+    public WordImport getWordImport() {
+        return wordImport;
+    }
+
+    public SearchOutbox getSearchOutbox() {
+        return searchOutbox;
+    }
+
+    public Reindex getReindex() {
+        return reindex;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Lucene getLucene() {
+        return lucene;
+    }
+
+    public Consistency getConsistency() {
+        return consistency;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public static class WordImport {
+
+        private int batchSize = 500;
+
+        private int maxReportedErrors = 100;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxReportedErrors() {
+            return maxReportedErrors;
+        }
+
+        public void setMaxReportedErrors(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+    }
+
+    public static class SearchOutbox {
+
+        private long delay = 1000;
+
+        private int batchSize = 500;
+
+        private long initialBackoff = 1000;
+
+        private long maxBackoff = 60000;
+
+        private long leaseDuration = 60000;
+
+        private int maxAttempts = 10;
+
+        public long getDelay() {
+            return delay;
+        }
+
+        public void setDelay(long delay) {
+            this.delay = delay;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public long getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        public void setLeaseDuration(long leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+    }
+
+    public static class Reindex {
+
+        private int chunkSize = 1000;
+
+        private int concurrentRequests = 2;
+
+        private long incrementalDelay = 3600000;
+
+        private long incrementalOverlap = 60000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getConcurrentRequests() {
+            return concurrentRequests;
+        }
+
+        public void setConcurrentRequests(int concurrentRequests) {
+            this.concurrentRequests = concurrentRequests;
+        }
+
+        public long getIncrementalDelay() {
+            return incrementalDelay;
+        }
+
+        public void setIncrementalDelay(long incrementalDelay) {
+            this.incrementalDelay = incrementalDelay;
+        }
+
+        public long getIncrementalOverlap() {
+            return incrementalOverlap;
+        }
+
+        public void setIncrementalOverlap(long incrementalOverlap) {
+            this.incrementalOverlap = incrementalOverlap;
+        }
+    }
+
+    public static class Search {
+
+        private int maxTermLength = 100;
+
+        private int maxTerms = 8;
+
+        private int maxPageSize = 100;
+
+        private int maxResultWindow = 10000;
+
+        private long timeout = 2000;
+
+        private long slowCallThreshold = 1000;
+
+        private int breakerWindowSize = 20;
+
+        private int breakerFailureRate = 50;
+
+        private long breakerOpenDuration = 30000;
+
+        private int maxConcurrentRequests = 20;
+
+        private long cursorKeepAlive = 60000;
+
+        private int maxOpenCursors = 10;
+
+        private int maxFacets = 50;
+
+        public int getMaxTermLength() {
+            return maxTermLength;
+        }
+
+        public void setMaxTermLength(int maxTermLength) {
+            this.maxTermLength = maxTermLength;
+        }
+
+        public int getMaxTerms() {
+            return maxTerms;
+        }
+
+        public void setMaxTerms(int maxTerms) {
+            this.maxTerms = maxTerms;
+        }
+
+        public int getMaxPageSize() {
+            return maxPageSize;
+        }
+
+        public void setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+        }
+
+        public int getMaxResultWindow() {
+            return maxResultWindow;
+        }
+
+        public void setMaxResultWindow(int maxResultWindow) {
+            this.maxResultWindow = maxResultWindow;
+        }
+
+        public long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(long timeout) {
+            this.timeout = timeout;
+        }
+
+        public long getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        public void setSlowCallThreshold(long slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        public int getBreakerWindowSize() {
+            return breakerWindowSize;
+        }
+
+        public void setBreakerWindowSize(int breakerWindowSize) {
+            this.breakerWindowSize = breakerWindowSize;
+        }
+
+        public int getBreakerFailureRate() {
+            return breakerFailureRate;
+        }
+
+        public void setBreakerFailureRate(int breakerFailureRate) {
+            this.breakerFailureRate = breakerFailureRate;
+        }
+
+        public long getBreakerOpenDuration() {
+            return breakerOpenDuration;
+        }
+
+        public void setBreakerOpenDuration(long breakerOpenDuration) {
+            this.breakerOpenDuration = breakerOpenDuration;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+
+        public long getCursorKeepAlive() {
+            return cursorKeepAlive;
+        }
+
+        public void setCursorKeepAlive(long cursorKeepAlive) {
+            this.cursorKeepAlive = cursorKeepAlive;
+        }
+
+        public int getMaxOpenCursors() {
+            return maxOpenCursors;
+        }
+
+        public void setMaxOpenCursors(int maxOpenCursors) {
+            this.maxOpenCursors = maxOpenCursors;
+        }
+
+        public int getMaxFacets() {
+            return maxFacets;
+        }
+
+        public void setMaxFacets(int maxFacets) {
+            this.maxFacets = maxFacets;
+        }
+    }
+
+    public static class Lucene {
+
+        private String path = "data/lucene";
+
+        private long syncDelay = 1000;
+
+        private long syncOverlap = 10000;
+
+        private long tombstoneRetention = 604800000;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public long getSyncDelay() {
+            return syncDelay;
+        }
+
+        public void setSyncDelay(long syncDelay) {
+            this.syncDelay = syncDelay;
+        }
+
+        public long getSyncOverlap() {
+            return syncOverlap;
+        }
+
+        public void setSyncOverlap(long syncOverlap) {
+            this.syncOverlap = syncOverlap;
+        }
+
+        public long getTombstoneRetention() {
+            return tombstoneRetention;
+        }
+
+        public void setTombstoneRetention(long tombstoneRetention) {
+            this.tombstoneRetention = tombstoneRetention;
+        }
+    }
+
+    public static class Consistency {
+
+        private long delay = 86400000;
+
+        private int chunkSize = 1000;
+
+        private boolean repair = true;
+
+        public long getDelay() {
+            return delay;
+        }
+
+        public void setDelay(long delay) {
+            this.delay = delay;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public boolean isRepair() {
+            return repair;
+        }
+
+        public void setRepair(boolean repair) {
+            this.repair = repair;
+        }
+    }
+
+    public static class Cache {
+
+        private long wordMaxEntries = 10000;
+
+        private long categoryTimeToLiveSeconds = 86400;
+
+        public long getWordMaxEntries() {
+            return wordMaxEntries;
+        }
+
+        public void setWordMaxEntries(long wordMaxEntries) {
+            this.wordMaxEntries = wordMaxEntries;
+        }
+
+        public long getCategoryTimeToLiveSeconds() {
+            return categoryTimeToLiveSeconds;
+        }
+
+        public void setCategoryTimeToLiveSeconds(long categoryTimeToLiveSeconds) {
+            this.categoryTimeToLiveSeconds = categoryTimeToLiveSeconds;
+        }
+    }
 }
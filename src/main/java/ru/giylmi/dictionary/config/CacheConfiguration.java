@@ -0,0 +1,100 @@
+package ru.giylmi.dictionary.config;
+
+import ru.giylmi.dictionary.domain.Authority;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.User;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.ehcache.expiry.Expiry;
+import org.ehcache.jsr107.Eh107Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.*;
+
+/**
+ * Hibernate second-level cache, kept in the heap of each instance.
+ *
+ * <p>
+ * Every region is bounded and expires its entries, and reports its hits, misses and evictions to the metrics.
+ * Hibernate evicts the entities it writes, and drops the cached query results of the tables written since,
+ * so the cache only needs the writes to go through the entity manager.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+@AutoConfigureAfter(value = { MetricsConfiguration.class })
+@AutoConfigureBefore(value = { WebConfigurer.class, DatabaseConfiguration.class })
+public class CacheConfiguration {
+
+    private static final String QUERY_CACHE = "org.hibernate.cache.internal.StandardQueryCache";
+
+    private static final String UPDATE_TIMESTAMPS_CACHE = "org.hibernate.cache.spi.UpdateTimestampsCache";
+
+    private static final int UPDATE_TIMESTAMPS_MAX_ENTRIES = 1000;
+
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+
+    private final ApplicationProperties.Cache properties;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.properties = applicationProperties.getCache();
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            javax.cache.configuration.Configuration<Object, Object> defaultConfiguration =
+                configuration(ehcache.getMaxEntries(), ttl(ehcache.getTimeToLiveSeconds()));
+            javax.cache.configuration.Configuration<Object, Object> categoryConfiguration =
+                configuration(ehcache.getMaxEntries(), ttl(properties.getCategoryTimeToLiveSeconds()));
+            createCache(cm, User.class.getName(), defaultConfiguration);
+            createCache(cm, User.class.getName() + ".authorities", defaultConfiguration);
+            createCache(cm, Authority.class.getName(), defaultConfiguration);
+            createCache(cm, Word.class.getName(),
+                configuration(properties.getWordMaxEntries(), ttl(ehcache.getTimeToLiveSeconds())));
+            createCache(cm, Category.class.getName(), categoryConfiguration);
+            createCache(cm, CategoryRepository.ALL_CATEGORIES_CACHE, categoryConfiguration);
+            createCache(cm, QUERY_CACHE, defaultConfiguration);
+            // The last write of each table must outlive the query results cached before it, or stale ones would be served
+            createCache(cm, UPDATE_TIMESTAMPS_CACHE, configuration(UPDATE_TIMESTAMPS_MAX_ENTRIES, Expirations.noExpiration()));
+            // jhipster-needle-ehcache-add-entry
+        };
+    }
+
+    private static void createCache(CacheManager cm, String name, javax.cache.configuration.Configuration<Object, Object> configuration) {
+        // The caching provider shares its cache manager with every application context of the JVM, as in the tests
+        javax.cache.Cache<Object, Object> cache = cm.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        } else {
+            cm.createCache(name, configuration);
+        }
+        cm.enableStatistics(name, true);
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> configuration(long maxEntries, Expiry<Object, Object> expiry) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(expiry)
+                .build());
+    }
+
+    private static Expiry<Object, Object> ttl(long seconds) {
+        return Expirations.timeToLiveExpiration(Duration.of(seconds, TimeUnit.SECONDS));
+    }
+}
@@ -11,6 +11,9 @@ public final class Constants {
     public static final String SYSTEM_ACCOUNT = "system";
     public static final String ANONYMOUS_USER = "anonymoususer";
 
+    // Spring profile serving the searches without Elasticsearch, from a Lucene word index on the local disk and the database
+    public static final String SPRING_PROFILE_LUCENE = "lucene";
+
     private Constants() {
     }
 }
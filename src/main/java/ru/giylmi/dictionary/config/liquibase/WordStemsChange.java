@@ -0,0 +1,65 @@
+package ru.giylmi.dictionary.config.liquibase;
+
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.index.TermStemmer;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Fill the rus_stem and en_stem columns of the existing words, as stems can only be computed in Java.
+ */
+public class WordStemsChange implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 500;
+
+    private int updated;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (PreparedStatement select = connection.prepareStatement("select id, rus, en from word");
+             PreparedStatement update = connection.prepareStatement("update word set rus_stem = ?, en_stem = ? where id = ?");
+             ResultSet resultSet = select.executeQuery()) {
+            while (resultSet.next()) {
+                update.setString(1, TermStemmer.stem(Language.RU, resultSet.getString("rus")));
+                update.setString(2, TermStemmer.stem(Language.EN, resultSet.getString("en")));
+                update.setLong(3, resultSet.getLong("id"));
+                update.addBatch();
+                if (++updated % BATCH_SIZE == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        } catch (DatabaseException | SQLException e) {
+            throw new CustomChangeException("Could not compute the word stems", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Computed the stems of " + updated + " words";
+    }
+
+    @Override
+    public void setUp() {
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Liquibase custom changes.
+ */
+package ru.giylmi.dictionary.config.liquibase;
@@ -1,9 +1,15 @@
 package ru.giylmi.dictionary.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -11,7 +17,9 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "category")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Document(indexName = "category")
+@EntityListeners(AuditingEntityListener.class)
 public class Category implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -27,6 +35,11 @@ public class Category implements Serializable {
     @Column(name = "en")
     private String en;
 
+    @LastModifiedDate
+    @Column(name = "last_modified_date", nullable = false)
+    @JsonIgnore
+    private Instant lastModifiedDate = Instant.now();
+
     public Long getId() {
         return id;
     }
@@ -61,6 +74,14 @@ public class Category implements Serializable {
         this.en = en;
     }
 
+    public Instant getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,112 @@
+package ru.giylmi.dictionary.domain;
+
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The deletion of an indexed entity, kept so that an incremental reindex can delete its document.
+ *
+ * <p>
+ * A deleted row leaves nothing behind for a last-modified query to find, so its deletion is recorded here.
+ * Tombstones are purged once an incremental reindex has covered them.
+ * </p>
+ */
+@Entity
+@Table(name = "search_tombstone")
+public class SearchTombstone implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @SequenceGenerator(name = "sequenceGenerator")
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 20, nullable = false)
+    private EntityType entityType;
+
+    @NotNull
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @NotNull
+    @Column(name = "deleted_date", nullable = false)
+    private Instant deletedDate = Instant.now();
+
+    public SearchTombstone() {
+    }
+
+    public SearchTombstone(EntityType entityType, Long entityId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public Instant getDeletedDate() {
+        return deletedDate;
+    }
+
+    public void setDeletedDate(Instant deletedDate) {
+        this.deletedDate = deletedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchTombstone searchTombstone = (SearchTombstone) o;
+        if (searchTombstone.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), searchTombstone.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "SearchTombstone{" +
+            "id=" + getId() +
+            ", entityType='" + getEntityType() + "'" +
+            ", entityId=" + getEntityId() +
+            ", deletedDate='" + getDeletedDate() + "'" +
+            "}";
+    }
+}
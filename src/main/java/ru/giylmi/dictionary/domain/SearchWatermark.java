@@ -0,0 +1,103 @@
+package ru.giylmi.dictionary.domain;
+
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+
+import javax.persistence.*;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The point up to which the changes to an entity type are known to be in Elasticsearch, and the index being built for
+ * it by a full reindex.
+ *
+ * <p>
+ * An incremental reindex only sends the rows modified, and the tombstones written, since the watermark. The entity
+ * types without a last modified date have no watermark, only the index being built.
+ * </p>
+ *
+ * <p>
+ * The index being built is kept here rather than in memory, so that every instance draining the search outbox sends
+ * the changes to it.
+ * </p>
+ */
+@Entity
+@Table(name = "search_watermark")
+public class SearchWatermark implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 20)
+    private EntityType entityType;
+
+    @Column(name = "indexed_date")
+    private Instant indexedDate;
+
+    @Size(max = 255)
+    @Column(name = "building_index", length = 255)
+    private String buildingIndex;
+
+    public SearchWatermark() {
+    }
+
+    public SearchWatermark(EntityType entityType, Instant indexedDate) {
+        this.entityType = entityType;
+        this.indexedDate = indexedDate;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Instant getIndexedDate() {
+        return indexedDate;
+    }
+
+    public void setIndexedDate(Instant indexedDate) {
+        this.indexedDate = indexedDate;
+    }
+
+    public String getBuildingIndex() {
+        return buildingIndex;
+    }
+
+    public void setBuildingIndex(String buildingIndex) {
+        this.buildingIndex = buildingIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchWatermark searchWatermark = (SearchWatermark) o;
+        if (searchWatermark.getEntityType() == null || getEntityType() == null) {
+            return false;
+        }
+        return Objects.equals(getEntityType(), searchWatermark.getEntityType());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getEntityType());
+    }
+
+    @Override
+    public String toString() {
+        return "SearchWatermark{" +
+            "entityType='" + getEntityType() + "'" +
+            ", indexedDate='" + getIndexedDate() + "'" +
+            ", buildingIndex='" + getBuildingIndex() + "'" +
+            "}";
+    }
+}
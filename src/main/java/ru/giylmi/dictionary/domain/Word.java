@@ -1,9 +1,17 @@
 package ru.giylmi.dictionary.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.Instant;
 import java.util.Objects;
 
 /**
@@ -11,7 +19,11 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "word")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 @Document(indexName = "word")
+@Setting(settingPath = "config/elasticsearch/word-settings.json")
+@Mapping(mappingPath = "config/elasticsearch/word-mapping.json")
+@EntityListeners(AuditingEntityListener.class)
 public class Word implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -30,9 +42,20 @@ public class Word implements Serializable {
     @Column(name = "definition")
     private String definition;
 
+    @Column(name = "rus_stem")
+    private String rusStem;
+
+    @Column(name = "en_stem")
+    private String enStem;
+
     @ManyToOne(fetch = FetchType.EAGER)
     private Category category;
 
+    @LastModifiedDate
+    @Column(name = "last_modified_date", nullable = false)
+    @JsonIgnore
+    private Instant lastModifiedDate = Instant.now();
+
     public Long getId() {
         return id;
     }
@@ -80,6 +103,22 @@ public class Word implements Serializable {
         this.definition = definition;
     }
 
+    public String getRusStem() {
+        return rusStem;
+    }
+
+    public void setRusStem(String rusStem) {
+        this.rusStem = rusStem;
+    }
+
+    public String getEnStem() {
+        return enStem;
+    }
+
+    public void setEnStem(String enStem) {
+        this.enStem = enStem;
+    }
+
     public Category getCategory() {
         return category;
     }
@@ -93,6 +132,14 @@ public class Word implements Serializable {
         this.category = category;
     }
 
+    public Instant getLastModifiedDate() {
+        return lastModifiedDate;
+    }
+
+    public void setLastModifiedDate(Instant lastModifiedDate) {
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
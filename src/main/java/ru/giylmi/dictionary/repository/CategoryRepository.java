@@ -1,10 +1,15 @@
 package ru.giylmi.dictionary.repository;
 
 import ru.giylmi.dictionary.domain.Category;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.List;
 
 /**
  * Spring Data JPA repository for the Category entity.
@@ -13,4 +18,22 @@ import org.springframework.data.jpa.repository.*;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category,Long> {
 
+    /**
+     * The query cache region of {@link #findAll()}.
+     */
+    String ALL_CATEGORIES_CACHE = "ru.giylmi.dictionary.domain.Category.all";
+
+    @Override
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = ALL_CATEGORIES_CACHE)
+    })
+    List<Category> findAll();
+
+    /**
+     * Find the categories whose names match a lowercase like pattern, escaped with '!'.
+     */
+    @Query("select category from Category category"
+        + " where lower(category.rus) like :pattern escape '!' or lower(category.en) like :pattern escape '!'")
+    Page<Category> findAllByNameLike(@Param("pattern") String pattern, Pageable pageable);
 }
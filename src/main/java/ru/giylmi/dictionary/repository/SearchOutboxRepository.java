@@ -0,0 +1,25 @@
+package ru.giylmi.dictionary.repository;
+
+import ru.giylmi.dictionary.domain.SearchOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import org.springframework.data.jpa.repository.*;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the SearchOutboxEntry entity.
+ */
+@Repository
+public interface SearchOutboxRepository extends JpaRepository<SearchOutboxEntry, Long> {
+
+    /**
+     * Find the oldest entries available at a date, locking them until the end of the transaction. An instance reading
+     * the same entries meanwhile waits, then skips those no longer available.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<SearchOutboxEntry> findAllByParkedFalseAndAvailableDateLessThanEqualOrderByIdAsc(Instant date, Pageable pageable);
+}
@@ -0,0 +1,29 @@
+package ru.giylmi.dictionary.repository;
+
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.SearchTombstone;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the SearchTombstone entity.
+ */
+@Repository
+public interface SearchTombstoneRepository extends JpaRepository<SearchTombstone, Long> {
+
+    @Query("select searchTombstone.entityId from SearchTombstone searchTombstone"
+        + " where searchTombstone.entityType = :entityType and searchTombstone.deletedDate >= :since")
+    List<Long> findEntityIdsDeletedSince(@Param("entityType") EntityType entityType, @Param("since") Instant since);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SearchTombstone searchTombstone"
+        + " where searchTombstone.entityType = :entityType and searchTombstone.deletedDate < :before")
+    int deleteDeletedBefore(@Param("entityType") EntityType entityType, @Param("before") Instant before);
+}
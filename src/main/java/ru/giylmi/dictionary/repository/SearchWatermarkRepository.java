@@ -0,0 +1,15 @@
+package ru.giylmi.dictionary.repository;
+
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.SearchWatermark;
+import org.springframework.stereotype.Repository;
+
+import org.springframework.data.jpa.repository.*;
+
+/**
+ * Spring Data JPA repository for the SearchWatermark entity.
+ */
+@Repository
+public interface SearchWatermarkRepository extends JpaRepository<SearchWatermark, EntityType> {
+
+}
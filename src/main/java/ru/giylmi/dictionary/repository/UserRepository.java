@@ -5,6 +5,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 import java.time.Instant;
@@ -31,4 +33,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
     Page<User> findAllByLoginNot(Pageable pageable, String login);
+
+    /**
+     * Find the users whose login, names or email match a lowercase like pattern, escaped with '!'.
+     */
+    @Query("select u from User u where lower(u.login) like :pattern escape '!' or lower(u.firstName) like :pattern escape '!'"
+        + " or lower(u.lastName) like :pattern escape '!' or lower(u.email) like :pattern escape '!'")
+    Page<User> findAllByNameLike(@Param("pattern") String pattern, Pageable pageable);
 }
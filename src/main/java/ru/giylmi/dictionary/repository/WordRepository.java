@@ -1,10 +1,22 @@
 package ru.giylmi.dictionary.repository;
 
 import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Spring Data JPA repository for the Word entity.
@@ -13,4 +25,76 @@ import org.springframework.data.jpa.repository.*;
 @Repository
 public interface WordRepository extends JpaRepository<Word,Long> {
 
+    /**
+     * Stream all the words with their category, fetching rows from the database in chunks, without putting them
+     * in the second-level cache, which a single export would flush. Must be consumed within a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+        @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select word from Word word left join fetch word.category order by word.id")
+    Stream<Word> streamAll();
+
+    /**
+     * Stream the words of a category, fetching rows from the database in chunks, without putting them in the
+     * second-level cache. Must be consumed within a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true"),
+        @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select word from Word word left join fetch word.category where word.category.id = :categoryId order by word.id")
+    Stream<Word> streamAllByCategoryId(@Param("categoryId") Long categoryId);
+
+    /**
+     * Select clause of the queries reading words directly as DTOs, joined once with their category.
+     */
+    String WORD_DTO_SELECT = "select new ru.giylmi.dictionary.service.dto.WordDTO(word.id, word.rus, word.en, word.definition,"
+        + " category.id, category.rus, category.en) from Word word left join word.category category";
+
+    @Query(value = WORD_DTO_SELECT, countQuery = "select count(word) from Word word")
+    Page<WordDTO> findAllAsDto(Pageable pageable);
+
+    /**
+     * Seek the words following the given id, in id order. Only the size of the pageable is used.
+     */
+    @Query(WORD_DTO_SELECT + " where word.id > :id order by word.id")
+    List<WordDTO> findAllAsDtoAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Seek the words modified since the given date following the given id, in id order. Only the size of the pageable is used.
+     */
+    @Query(WORD_DTO_SELECT + " where word.lastModifiedDate >= :since and word.id > :id order by word.id")
+    List<WordDTO> findAllAsDtoModifiedSinceAfter(@Param("since") Instant since, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Seek the ids of the words of a category following the given id, in id order. Only the size of the pageable is used.
+     */
+    @Query("select word.id from Word word where word.category.id = :categoryId and word.id > :id order by word.id")
+    List<Long> findIdsByCategoryIdAfter(@Param("categoryId") Long categoryId, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Seek the words following the given Russian term and id, in term then id order. Words without a Russian term
+     * are not returned. Only the size of the pageable is used. The range on the term comes first, so that the database
+     * seeks the index on the term to the given one instead of evaluating the disjunction on every row.
+     */
+    @Query(WORD_DTO_SELECT + " where word.rus >= :rus and (word.rus > :rus or word.id > :id) order by word.rus, word.id")
+    List<WordDTO> findAllAsDtoByRusAfter(@Param("rus") String rus, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Seek the words without a Russian term following the given id, in id order. Only the size of the pageable is used.
+     */
+    @Query(WORD_DTO_SELECT + " where word.rus is null and word.id > :id order by word.id")
+    List<WordDTO> findAllAsDtoWithoutRusAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Seek the words following the given English term and id, in term then id order. Words without an English term
+     * are not returned. Only the size of the pageable is used. The range on the term comes first, so that the database
+     * seeks the index on the term to the given one instead of evaluating the disjunction on every row.
+     */
+    @Query(WORD_DTO_SELECT + " where word.en >= :en and (word.en > :en or word.id > :id) order by word.en, word.id")
+    List<WordDTO> findAllAsDtoByEnAfter(@Param("en") String en, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Seek the words without an English term following the given id, in id order. Only the size of the pageable is used.
+     */
+    @Query(WORD_DTO_SELECT + " where word.en is null and word.id > :id order by word.id")
+    List<WordDTO> findAllAsDtoWithoutEnAfter(@Param("id") Long id, Pageable pageable);
 }
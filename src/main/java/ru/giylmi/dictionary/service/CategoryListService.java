@@ -0,0 +1,207 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service keeping the category list serialized, for the clients fetching it each time they edit a word.
+ *
+ * <p>
+ * A version counter is bumped by every insert, update or delete of a category, once when it is flushed and again when
+ * its transaction completes, so that a list read in between is not kept. The list is read and serialized again on
+ * the first request following a change, and its ETag is a digest of the serialized list, which gives the same tag
+ * on every instance.
+ * </p>
+ *
+ * <p>
+ * The counter only sees the writes made through the entity manager of this instance. The list is therefore also read
+ * again once it is older than "application.cache.category-time-to-live-seconds", bypassing the cached categories of
+ * this instance, so that the writes of other instances or made directly in the database are served at most that
+ * long after they commit.
+ * </p>
+ */
+@Service
+public class CategoryListService implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+    private final Logger log = LoggerFactory.getLogger(CategoryListService.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private final CategoryMapper categoryMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final long timeToLiveNanos;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile SerializedCategories serialized;
+
+    public CategoryListService(CategoryRepository categoryRepository, CategoryMapper categoryMapper,
+                               ObjectMapper objectMapper, EntityManager entityManager,
+                               ApplicationProperties applicationProperties) {
+        this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.timeToLiveNanos = TimeUnit.SECONDS.toNanos(applicationProperties.getCache().getCategoryTimeToLiveSeconds());
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * @return all the categories, serialized as a JSON array of category DTOs
+     */
+    public SerializedCategories getAll() {
+        long current = version.get();
+        SerializedCategories categories = serialized;
+        if (isFresh(categories, current)) {
+            return categories;
+        }
+        synchronized (this) {
+            current = version.get();
+            categories = serialized;
+            if (!isFresh(categories, current)) {
+                if (categories != null && categories.version == current) {
+                    // Only expired, so the categories cached by this instance may be as old as the list
+                    SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+                    sessionFactory.getCache().evictEntityRegion(Category.class);
+                    sessionFactory.getCache().evictQueryRegion(CategoryRepository.ALL_CATEGORIES_CACHE);
+                }
+                categories = serialize(current);
+                serialized = categories;
+            }
+            return categories;
+        }
+    }
+
+    private boolean isFresh(SerializedCategories categories, long current) {
+        return categories != null && categories.version == current
+            && System.nanoTime() - categories.serializedNanos < timeToLiveNanos;
+    }
+
+    private SerializedCategories serialize(long version) {
+        log.debug("Serializing the Categories at version {}", version);
+        try {
+            long serializedNanos = System.nanoTime();
+            byte[] body = objectMapper.writeValueAsBytes(categoryMapper.toDto(categoryRepository.findAll()));
+            return new SerializedCategories(version, serializedNanos, body, '"' + DigestUtils.md5DigestAsHex(body) + '"');
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the categories", e);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        changed(event.getEntity());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Category.class.equals(persister.getMappedClass());
+    }
+
+    private void changed(Object entity) {
+        if (entity instanceof Category) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * The serialized category list of a version.
+     */
+    public static final class SerializedCategories {
+
+        private final long version;
+
+        private final long serializedNanos;
+
+        private final byte[] body;
+
+        private final String eTag;
+
+        private SerializedCategories(long version, long serializedNanos, byte[] body, String eTag) {
+            this.version = version;
+            this.serializedNanos = serializedNanos;
+            this.body = body;
+            this.eTag = eTag;
+        }
+
+        /**
+         * @return the UTF-8 JSON array of the categories, which must not be modified
+         */
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return the quoted strong entity tag of the list
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
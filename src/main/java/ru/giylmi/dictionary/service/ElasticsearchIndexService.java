@@ -1,88 +1,568 @@
 package ru.giylmi.dictionary.service;
 
 import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.config.Constants;
 import ru.giylmi.dictionary.domain.*;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
 import ru.giylmi.dictionary.repository.*;
-import ru.giylmi.dictionary.repository.search.*;
-import org.elasticsearch.indices.IndexAlreadyExistsException;
+import ru.giylmi.dictionary.service.dto.ReindexStatusDTO;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
 import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
-import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
-import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
+/**
+ * Service rebuilding the Elasticsearch indices from the database.
+ *
+ * <p>
+ * The documents are searched through aliases named after the entities. A reindex loads a new versioned index while
+ * searches keep using the current one, then moves the alias to the new index in a single atomic request.
+ * The new index is created with the settings and mapping files of the entity, so a reindex also applies their changes.
+ * The entities are reindexed in parallel, and their progress is kept for the status endpoint.
+ * </p>
+ *
+ * <p>
+ * The index being loaded is recorded with the watermarks, so that the search outbox of every instance sends it the
+ * changes made meanwhile. As the load may have read a row before its deletion, the deletions recorded as tombstones
+ * since the load started are applied to the new index before it goes live.
+ * </p>
+ *
+ * <p>
+ * Words and categories can also be reindexed incrementally: only the rows modified since a stored watermark are sent,
+ * along with the deletions recorded as tombstones, into the live index.
+ * </p>
+ */
 @Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
 public class ElasticsearchIndexService {
 
+    private static final long REINDEX_TIMEOUT_MINUTES = 60;
+
+    /**
+     * The entities carrying a last modified date, which can be reindexed incrementally.
+     */
+    private static final Map<Class<?>, EntityType> WATERMARKED_TYPES = new LinkedHashMap<>();
+
+    /**
+     * The indexed entities.
+     */
+    private static final Map<Class<?>, EntityType> ENTITY_TYPES = new LinkedHashMap<>();
+
+    static {
+        WATERMARKED_TYPES.put(Category.class, EntityType.CATEGORY);
+        WATERMARKED_TYPES.put(Word.class, EntityType.WORD);
+        ENTITY_TYPES.putAll(WATERMARKED_TYPES);
+        ENTITY_TYPES.put(User.class, EntityType.USER);
+    }
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+
     private final Logger log = LoggerFactory.getLogger(ElasticsearchIndexService.class);
 
     private final CategoryRepository categoryRepository;
 
-    private final CategorySearchRepository categorySearchRepository;
-
     private final WordRepository wordRepository;
 
-    private final WordSearchRepository wordSearchRepository;
-
     private final UserRepository userRepository;
 
-    private final UserSearchRepository userSearchRepository;
-
     private final ElasticsearchTemplate elasticsearchTemplate;
 
+    private final SearchDocumentService searchDocumentService;
+
+    private final SearchWatermarkRepository searchWatermarkRepository;
+
+    private final SearchTombstoneRepository searchTombstoneRepository;
+
+    private final SearchEntityReader searchEntityReader;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ApplicationProperties.Reindex properties;
+
+    private final AtomicBoolean reindexing = new AtomicBoolean();
+
+    private final Map<Class<?>, Progress> progresses = new ConcurrentHashMap<>();
+
     public ElasticsearchIndexService(
         UserRepository userRepository,
-        UserSearchRepository userSearchRepository,
         CategoryRepository categoryRepository,
-        CategorySearchRepository categorySearchRepository,
         WordRepository wordRepository,
-        WordSearchRepository wordSearchRepository,
-        ElasticsearchTemplate elasticsearchTemplate) {
+        SearchWatermarkRepository searchWatermarkRepository,
+        SearchTombstoneRepository searchTombstoneRepository,
+        ElasticsearchTemplate elasticsearchTemplate,
+        SearchDocumentService searchDocumentService,
+        SearchEntityReader searchEntityReader,
+        @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+        ApplicationProperties applicationProperties) {
         this.userRepository = userRepository;
-        this.userSearchRepository = userSearchRepository;
         this.categoryRepository = categoryRepository;
-        this.categorySearchRepository = categorySearchRepository;
         this.wordRepository = wordRepository;
-        this.wordSearchRepository = wordSearchRepository;
+        this.searchWatermarkRepository = searchWatermarkRepository;
+        this.searchTombstoneRepository = searchTombstoneRepository;
         this.elasticsearchTemplate = elasticsearchTemplate;
+        this.searchDocumentService = searchDocumentService;
+        this.searchEntityReader = searchEntityReader;
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getReindex();
     }
 
+    /**
+     * Reindex every entity, in parallel. Does nothing if a reindex is already running.
+     */
     @Async
     @Timed
     public void reindexAll() {
-        reindexForClass(Category.class, categoryRepository, categorySearchRepository);
-        reindexForClass(Word.class, wordRepository, wordSearchRepository);
-        reindexForClass(User.class, userRepository, userSearchRepository);
+        if (!reindexing.compareAndSet(false, true)) {
+            log.warn("Elasticsearch: A reindex is already running");
+            return;
+        }
+        progresses.clear();
+        List<FutureTask<Void>> tasks = Arrays.asList(
+            new FutureTask<>(() -> reindexForClass(Category.class, categoryRepository), null),
+            new FutureTask<>(() -> reindexForClass(Word.class, wordRepository), null),
+            new FutureTask<>(() -> reindexForClass(User.class, userRepository), null));
+        List<Throwable> failures = new ArrayList<>();
+        boolean interrupted = false;
+        try {
+            for (FutureTask<Void> task : tasks) {
+                try {
+                    taskExecutor.execute(task);
+                } catch (TaskRejectedException e) {
+                    log.debug("Elasticsearch: Reindex task rejected by the executor, running it in place");
+                }
+            }
+            // The tasks still queued, behind the other asynchronous tasks, are run by this thread instead
+            tasks.forEach(FutureTask::run);
+            // Every task is waited for, even after a failure or an interruption, so that the reindex is only
+            // reported as finished once none of its tasks is running
+            for (FutureTask<Void> task : tasks) {
+                while (true) {
+                    try {
+                        task.get();
+                        break;
+                    } catch (ExecutionException e) {
+                        failures.add(e.getCause());
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            reindexing.set(false);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failures.isEmpty()) {
+            log.info("Elasticsearch: Successfully performed reindexing");
+        } else {
+            failures.forEach(failure -> log.error("Elasticsearch: Reindexing failed", failure));
+        }
+    }
 
-        log.info("Elasticsearch: Successfully performed reindexing");
+    /**
+     * @return true if a full or incremental reindex is running
+     */
+    public boolean isReindexing() {
+        return reindexing.get();
     }
 
-    @Transactional(readOnly = true)
-    @SuppressWarnings("unchecked")
-    private <T, ID extends Serializable> void reindexForClass(Class<T> entityClass, JpaRepository<T, ID> jpaRepository,
-                                                              ElasticsearchRepository<T, ID> elasticsearchRepository) {
-        elasticsearchTemplate.deleteIndex(entityClass);
+    /**
+     * @param entityClass the class of the indexed entity
+     * @return the name of the index being loaded for the entity, which must receive the changes to the entity
+     * along with the live index, or null if the entity is not being reindexed
+     */
+    public String getBuildingIndex(Class<?> entityClass) {
+        SearchWatermark watermark = searchWatermarkRepository.findOne(ENTITY_TYPES.get(entityClass));
+        String index = watermark == null ? null : watermark.getBuildingIndex();
+        // An index left behind by an instance that stopped while reindexing must not be recreated by the changes
+        return index == null || !elasticsearchTemplate.indexExists(index) ? null : index;
+    }
+
+    private void setBuildingIndex(EntityType entityType, String index) {
+        SearchWatermark watermark = Optional.ofNullable(searchWatermarkRepository.findOne(entityType))
+            .orElseGet(() -> new SearchWatermark(entityType, null));
+        watermark.setBuildingIndex(index);
+        searchWatermarkRepository.save(watermark);
+    }
+
+    private void setIndexedDate(EntityType entityType, Instant indexedDate) {
+        SearchWatermark watermark = Optional.ofNullable(searchWatermarkRepository.findOne(entityType))
+            .orElseGet(() -> new SearchWatermark(entityType, null));
+        watermark.setIndexedDate(indexedDate);
+        searchWatermarkRepository.save(watermark);
+    }
+
+    /**
+     * @return the progress of the running or last reindex of each entity
+     */
+    public List<ReindexStatusDTO> getStatus() {
+        return progresses.values().stream()
+            .map(Progress::toDto)
+            .sorted(Comparator.comparing(ReindexStatusDTO::getEntity))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Send the changes to the entities carrying a last modified date that were made since their watermark: the modified
+     * rows replace their documents, and the documents of the deleted rows are deleted. Does nothing if a reindex is
+     * already running.
+     */
+    @Async
+    @Scheduled(initialDelayString = "${application.reindex.incremental-delay:3600000}",
+        fixedDelayString = "${application.reindex.incremental-delay:3600000}")
+    @Timed
+    public void reindexIncremental() {
+        if (!reindexing.compareAndSet(false, true)) {
+            log.warn("Elasticsearch: A reindex is already running");
+            return;
+        }
+        progresses.clear();
         try {
-            elasticsearchTemplate.createIndex(entityClass);
-        } catch (IndexAlreadyExistsException e) {
-            // Do nothing. Index was already concurrently recreated by some other service.
-        }
-        elasticsearchTemplate.putMapping(entityClass);
-        if (jpaRepository.count() > 0) {
-            try {
-                Method m = jpaRepository.getClass().getMethod("findAllWithEagerRelationships");
-                elasticsearchRepository.save((List<T>) m.invoke(jpaRepository));
-            } catch (Exception e) {
-                elasticsearchRepository.save(jpaRepository.findAll());
+            for (Map.Entry<Class<?>, EntityType> watermarkedType : WATERMARKED_TYPES.entrySet()) {
+                reindexChangesForClass(watermarkedType.getKey(), watermarkedType.getValue());
             }
+            log.info("Elasticsearch: Successfully performed incremental reindexing");
+        } catch (RuntimeException e) {
+            log.error("Elasticsearch: Incremental reindexing failed", e);
+        } finally {
+            reindexing.set(false);
+        }
+    }
+
+    private <T, ID extends Serializable> void reindexForClass(Class<T> entityClass, JpaRepository<T, ID> jpaRepository) {
+        Progress progress = new Progress(entityClass.getSimpleName(), jpaRepository.count());
+        track(entityClass, progress, () -> reindexForClass(entityClass, progress));
+        if (WATERMARKED_TYPES.containsKey(entityClass)) {
+            // The changes made while loading are sent again by the next incremental reindex
+            setIndexedDate(WATERMARKED_TYPES.get(entityClass), progress.startedDate);
+        }
+    }
+
+    private <T> void reindexChangesForClass(Class<T> entityClass, EntityType entityType) {
+        Instant startedDate = Instant.now();
+        SearchWatermark watermark = searchWatermarkRepository.findOne(entityType);
+        // Transactions committing around the previous watermark may have been missed, so a short overlap is sent again
+        Instant since = watermark == null || watermark.getIndexedDate() == null ? Instant.EPOCH
+            : watermark.getIndexedDate().minusMillis(properties.getIncrementalOverlap());
+        List<Long> deletedIds = searchTombstoneRepository.findEntityIdsDeletedSince(entityType, since);
+        ElasticsearchPersistentEntity<T> document = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+        String alias = document.getIndexName();
+
+        Progress progress = new Progress(entityClass.getSimpleName(), searchEntityReader.countModified(entityClass, since) + deletedIds.size());
+        progress.index = alias;
+        track(entityClass, progress, () -> {
+            load(entityClass, document, alias, since, deletedIds, progress);
+            elasticsearchTemplate.refresh(alias);
+        });
+        setIndexedDate(entityType, startedDate);
+        searchTombstoneRepository.deleteDeletedBefore(entityType, since);
+        log.info("Elasticsearch: Sent {} changes to {} made since {}", progress.indexed.get(), entityClass.getSimpleName(), since);
+    }
+
+    private void track(Class<?> entityClass, Progress progress, Runnable reindex) {
+        progresses.put(entityClass, progress);
+        try {
+            reindex.run();
+            progress.state = ReindexStatusDTO.State.DONE;
+        } catch (RuntimeException e) {
+            progress.state = ReindexStatusDTO.State.FAILED;
+            progress.error = e.getMessage();
+            throw e;
+        } finally {
+            progress.finishedDate = Instant.now();
+        }
+    }
+
+    private <T> void reindexForClass(Class<T> entityClass, Progress progress) {
+        ElasticsearchPersistentEntity<T> document = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+        String alias = document.getIndexName();
+        String type = document.getIndexType();
+        List<String> liveIndices = getAliasedIndices(alias);
+        // Before the first reindex, the documents are in an index named like the alias
+        boolean concreteLiveIndex = liveIndices.isEmpty() && elasticsearchTemplate.indexExists(alias);
+        if (concreteLiveIndex) {
+            liveIndices.add(alias);
+        }
+        Map<String, Object> liveSettings = getLiveSettings(liveIndices);
+        Object mapping = getMapping(entityClass, liveIndices, type);
+
+        String index = alias + "_" + VERSION_FORMAT.format(Instant.now());
+        progress.index = index;
+        Settings loadSettings = Settings.settingsBuilder()
+            .put(getSettings(entityClass))
+            .put(NUMBER_OF_REPLICAS, 0)
+            .put(REFRESH_INTERVAL, "-1")
+            .build();
+        elasticsearchTemplate.createIndex(index, loadSettings.getAsMap());
+        if (mapping != null) {
+            elasticsearchTemplate.putMapping(index, type, mapping);
+        }
+        EntityType entityType = ENTITY_TYPES.get(entityClass);
+        setBuildingIndex(entityType, index);
+        // Transactions deleting rows around the start of the load write their tombstones slightly before it
+        Instant since = progress.startedDate.minusMillis(properties.getIncrementalOverlap());
+        try {
+            load(entityClass, document, index, null, Collections.emptyList(), progress);
+            // A row read before its deletion was created after the outbox deleted its document
+            deleteDocuments(index, type, searchTombstoneRepository.findEntityIdsDeletedSince(entityType, since));
+            elasticsearchTemplate.getClient().admin().indices().prepareUpdateSettings(index).setSettings(liveSettings).get();
+            elasticsearchTemplate.refresh(index);
+            swapAlias(alias, index, liveIndices, concreteLiveIndex);
+            log.info("Elasticsearch: Indexed {} rows for {} into {}", progress.indexed.get(), entityClass.getSimpleName(), index);
+        } catch (RuntimeException e) {
+            elasticsearchTemplate.deleteIndex(index);
+            throw e;
+        } finally {
+            setBuildingIndex(entityType, null);
+        }
+        if (!WATERMARKED_TYPES.containsKey(entityClass)) {
+            // Only the incremental reindex reads the tombstones of the entities carrying a last modified date
+            searchTombstoneRepository.deleteDeletedBefore(entityType, since);
+        }
+    }
+
+    private void deleteDocuments(String index, String type, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += properties.getChunkSize()) {
+            BulkRequestBuilder requests = elasticsearchTemplate.getClient().prepareBulk();
+            ids.subList(from, Math.min(ids.size(), from + properties.getChunkSize()))
+                .forEach(id -> requests.add(new DeleteRequest(index, type, String.valueOf(id))));
+            BulkResponse response = requests.get();
+            if (response.hasFailures()) {
+                throw new IllegalStateException("Could not delete from " + index + ": " + response.buildFailureMessage());
+            }
+        }
+    }
+
+    /**
+     * Read the entities chunk by chunk in id order, and send them to the index with a bounded number of bulk
+     * requests in flight, so that neither the rows nor the requests pile up in memory. The documents carry the external
+     * version of their entity, so that a row read before a newer change does not replace the document of the change.
+     *
+     * @param modifiedSince if not null, only the entities modified since then are sent, otherwise every entity is sent
+     * @param deletedIds the ids of the documents to delete
+     */
+    private <T> void load(Class<T> entityClass, ElasticsearchPersistentEntity<T> document, String index,
+                          Instant modifiedSince, List<Long> deletedIds, Progress progress) {
+        AtomicReference<String> failure = new AtomicReference<>();
+        BulkProcessor bulkProcessor = BulkProcessor.builder(elasticsearchTemplate.getClient(), new BulkProcessor.Listener() {
+
+            @Override
+            public void beforeBulk(long executionId, BulkRequest request) {
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                for (BulkItemResponse item : response.getItems()) {
+                    // Conflicts are documents the search outbox wrote first, from a newer version of the entity
+                    if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                        failure.compareAndSet(null, item.getFailureMessage());
+                    }
+                }
+                progress.indexed.addAndGet(request.numberOfActions());
+            }
+
+            @Override
+            public void afterBulk(long executionId, BulkRequest request, Throwable t) {
+                failure.compareAndSet(null, t.getMessage());
+            }
+        })
+            .setBulkActions(properties.getChunkSize())
+            .setConcurrentRequests(properties.getConcurrentRequests())
+            .build();
+
+        try {
+            Object lastId = null;
+            List<T> chunk;
+            do {
+                chunk = searchEntityReader.readChunk(entityClass, lastId, modifiedSince, properties.getChunkSize());
+                for (T entity : chunk) {
+                    lastId = document.getPropertyAccessor(entity).getProperty(document.getIdProperty());
+                    bulkProcessor.add(new IndexRequest(index, document.getIndexType(), String.valueOf(lastId))
+                        .source(searchDocumentService.toSource(entity))
+                        .version(searchDocumentService.getVersion(entity))
+                        .versionType(VersionType.EXTERNAL_GTE));
+                }
+            } while (chunk.size() == properties.getChunkSize() && failure.get() == null);
+            for (Long deletedId : deletedIds) {
+                bulkProcessor.add(new DeleteRequest(index, document.getIndexType(), String.valueOf(deletedId)));
+            }
+        } finally {
+            awaitClose(bulkProcessor);
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Could not index into " + index + ": " + failure.get());
+        }
+    }
+
+    private void awaitClose(BulkProcessor bulkProcessor) {
+        try {
+            if (!bulkProcessor.awaitClose(REINDEX_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Timed out waiting for the bulk requests to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the bulk requests to complete", e);
+        }
+    }
+
+    private void swapAlias(String alias, String index, List<String> liveIndices, boolean concreteLiveIndex) {
+        IndicesAliasesRequestBuilder aliases = elasticsearchTemplate.getClient().admin().indices().prepareAliases();
+        if (concreteLiveIndex) {
+            // An alias cannot share the name of an index, so this one-time migration leaves a short gap
+            elasticsearchTemplate.deleteIndex(alias);
+        } else {
+            liveIndices.forEach(liveIndex -> aliases.removeAlias(liveIndex, alias));
+        }
+        aliases.addAlias(index, alias).get();
+        if (!concreteLiveIndex) {
+            liveIndices.forEach(elasticsearchTemplate::deleteIndex);
+        }
+    }
+
+    private List<String> getAliasedIndices(String alias) {
+        List<String> indices = new ArrayList<>();
+        Iterator<String> aliasedIndices = elasticsearchTemplate.getClient().admin().indices().prepareGetAliases(alias)
+            .get().getAliases().keysIt();
+        aliasedIndices.forEachRemaining(indices::add);
+        return indices;
+    }
+
+    private Map<String, Object> getLiveSettings(List<String> liveIndices) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(NUMBER_OF_REPLICAS, "1");
+        settings.put(REFRESH_INTERVAL, "1s");
+        if (!liveIndices.isEmpty()) {
+            Settings liveSettings = elasticsearchTemplate.getClient().admin().indices().prepareGetSettings(liveIndices.get(0))
+                .get().getIndexToSettings().get(liveIndices.get(0));
+            if (liveSettings != null) {
+                settings.put(NUMBER_OF_REPLICAS, liveSettings.get(NUMBER_OF_REPLICAS, "1"));
+                settings.put(REFRESH_INTERVAL, liveSettings.get(REFRESH_INTERVAL, "1s"));
+            }
+        }
+        return settings;
+    }
+
+    /**
+     * The analysis settings of the new index are read from the setting file of the entity if it has one.
+     */
+    private Settings getSettings(Class<?> entityClass) {
+        Setting setting = entityClass.getAnnotation(Setting.class);
+        if (setting == null || setting.settingPath().isEmpty()) {
+            return Settings.EMPTY;
+        }
+        return Settings.settingsBuilder()
+            .loadFromSource(ElasticsearchTemplate.readFileFromClasspath(setting.settingPath()))
+            .build();
+    }
+
+    /**
+     * The mapping of the new index is read from the mapping file of the entity if it has one, and otherwise copied
+     * from the live index, so that only the documents are rebuilt.
+     */
+    private Object getMapping(Class<?> entityClass, List<String> liveIndices, String type) {
+        Mapping mapping = entityClass.getAnnotation(Mapping.class);
+        if (mapping != null && !mapping.mappingPath().isEmpty()) {
+            return ElasticsearchTemplate.readFileFromClasspath(mapping.mappingPath());
+        }
+        if (liveIndices.isEmpty()) {
+            return null;
+        }
+        Map liveMapping = elasticsearchTemplate.getMapping(liveIndices.get(0), type);
+        return liveMapping == null || liveMapping.isEmpty() ? null : liveMapping;
+    }
+
+    /**
+     * The progress of the reindex of an entity, updated by the reindexing threads.
+     */
+    private static final class Progress {
+
+        private final String entity;
+
+        private final long total;
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private final Instant startedDate = Instant.now();
+
+        private volatile String index;
+
+        private volatile ReindexStatusDTO.State state = ReindexStatusDTO.State.RUNNING;
+
+        private volatile Instant finishedDate;
+
+        private volatile String error;
+
+        private Progress(String entity, long total) {
+            this.entity = entity;
+            this.total = total;
+        }
+
+        private ReindexStatusDTO toDto() {
+            ReindexStatusDTO status = new ReindexStatusDTO();
+            status.setEntity(entity);
+            status.setIndex(index);
+            status.setState(state);
+            status.setTotal(total);
+            status.setIndexed(indexed.get());
+            status.setPercentDone(total == 0 ? 100 : Math.min(100, indexed.get() * 100.0 / total));
+            long millis = Duration.between(startedDate, finishedDate == null ? Instant.now() : finishedDate).toMillis();
+            status.setRowsPerSecond(indexed.get() * 1000.0 / Math.max(1, millis));
+            status.setStartedDate(startedDate);
+            status.setFinishedDate(finishedDate);
+            status.setError(error);
+            return status;
         }
-        log.info("Elasticsearch: Indexed all rows for " + entityClass.getSimpleName());
     }
 }
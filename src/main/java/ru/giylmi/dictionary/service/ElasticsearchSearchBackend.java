@@ -0,0 +1,421 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.config.Constants;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.User;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.search.CategorySearchRepository;
+import ru.giylmi.dictionary.repository.search.UserSearchRepository;
+import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.CategoryFacetDTO;
+import ru.giylmi.dictionary.service.dto.GlobalSearchResultDTO;
+import ru.giylmi.dictionary.service.dto.ReindexStatusDTO;
+import ru.giylmi.dictionary.service.dto.SearchGroupDTO;
+import ru.giylmi.dictionary.service.dto.UserDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.dto.WordSearchPage;
+import ru.giylmi.dictionary.service.dto.WordSearchSlice;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+import ru.giylmi.dictionary.service.mapper.WordMapper;
+import ru.giylmi.dictionary.service.util.CircuitBreaker;
+import ru.giylmi.dictionary.service.util.WordQueryUtil;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.elasticsearch.index.query.QueryBuilders.multiMatchQuery;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+
+/**
+ * The search backend serving the searches from Elasticsearch, unless the "lucene" profile is active.
+ *
+ * <p>
+ * Elasticsearch is called from a bounded pool of threads, and a request thread waits for it at most the search
+ * timeout. Failed, slow and rejected word searches feed a circuit breaker, and while it is open the word searches are
+ * reported as unavailable, to be served by the in-memory word index instead.
+ * </p>
+ *
+ * <p>
+ * Deep pages are read from a cursor instead of a page number. The cursor wraps an Elasticsearch scroll, sorted by
+ * score then id, so that each page costs the same whatever its depth, and the result window does not apply.
+ * As each scroll holds resources in Elasticsearch until it expires, each instance keeps a bounded number of them open.
+ * </p>
+ *
+ * <p>
+ * A global search sends its searches in a single Elasticsearch multi-search request, so that it costs one round trip
+ * instead of one per kind of entity. A search failing in one index does not fail the others.
+ * </p>
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class ElasticsearchSearchBackend implements SearchBackend {
+
+    private static final String CATEGORY_FACETS = "categories";
+
+    private final Logger log = LoggerFactory.getLogger(ElasticsearchSearchBackend.class);
+
+    private final WordSearchRepository wordSearchRepository;
+
+    private final CategorySearchRepository categorySearchRepository;
+
+    private final UserSearchRepository userSearchRepository;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final ElasticsearchIndexService elasticsearchIndexService;
+
+    private final EntityMapper entityMapper;
+
+    private final WordIndexService wordIndexService;
+
+    private final WordMapper wordMapper;
+
+    private final CategoryMapper categoryMapper;
+
+    private final ApplicationProperties.Search properties;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The scrolls of the cursors this instance opened, with the time they expire at if not followed.
+     */
+    private final Map<String, Long> openCursors = new ConcurrentHashMap<>();
+
+    public ElasticsearchSearchBackend(WordSearchRepository wordSearchRepository,
+                                      CategorySearchRepository categorySearchRepository,
+                                      UserSearchRepository userSearchRepository,
+                                      ElasticsearchTemplate elasticsearchTemplate,
+                                      ElasticsearchIndexService elasticsearchIndexService, EntityMapper entityMapper,
+                                      WordIndexService wordIndexService, WordMapper wordMapper,
+                                      CategoryMapper categoryMapper, ApplicationProperties applicationProperties) {
+        this.wordSearchRepository = wordSearchRepository;
+        this.categorySearchRepository = categorySearchRepository;
+        this.userSearchRepository = userSearchRepository;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.elasticsearchIndexService = elasticsearchIndexService;
+        this.entityMapper = entityMapper;
+        this.wordIndexService = wordIndexService;
+        this.wordMapper = wordMapper;
+        this.categoryMapper = categoryMapper;
+        this.properties = applicationProperties.getSearch();
+        this.circuitBreaker = new CircuitBreaker(properties.getBreakerWindowSize(), properties.getBreakerFailureRate(),
+            properties.getSlowCallThreshold(), properties.getBreakerOpenDuration(), System::currentTimeMillis);
+        AtomicInteger threadCount = new AtomicInteger();
+        // Without a queue, the searches beyond the pool size are rejected and fall back at once
+        this.executor = new ThreadPoolExecutor(properties.getMaxConcurrentRequests(), properties.getMaxConcurrentRequests(),
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "word-search-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public WordSearchPage searchWords(String term, Language language, Long categoryId, MatchMode mode, Pageable pageable) {
+        return searchWords(WordQueryUtil.structuredQuery(term.trim(), language, categoryId, mode), pageable, false);
+    }
+
+    @Override
+    public WordSearchPage searchWordsByText(String text, Pageable pageable, boolean facets) {
+        return searchWords(WordQueryUtil.textQuery(text), pageable, facets);
+    }
+
+    @Override
+    public WordSearchPage searchWordsByQueryString(String query, Pageable pageable, boolean facets) {
+        return searchWords(queryStringQuery(query), pageable, facets);
+    }
+
+    @Override
+    public WordSearchSlice searchWordsByTextAfter(String text, String after, int size) {
+        return scroll(WordQueryUtil.textQuery(text), after, size);
+    }
+
+    @Override
+    public WordSearchSlice searchWordsByQueryStringAfter(String query, String after, int size) {
+        return scroll(queryStringQuery(query), after, size);
+    }
+
+    @Override
+    public List<CategoryDTO> searchCategories(String query, boolean queryString, int size) {
+        QueryBuilder queryBuilder = queryString ? queryStringQuery(query) : multiMatchQuery(query, "rus", "en");
+        return categorySearchRepository.search(queryBuilder, new PageRequest(0, size))
+            .getContent().stream()
+            .map(categoryMapper::toDto)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> searchUsers(String query) {
+        return StreamSupport
+            .stream(userSearchRepository.search(queryStringQuery(query)).spliterator(), false)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public GlobalSearchResultDTO searchAll(String query, boolean queryString, boolean users, int size) {
+        MultiSearchRequestBuilder request = elasticsearchTemplate.getClient().prepareMultiSearch()
+            .add(prepareSearch(Word.class, queryString ? queryStringQuery(query) : WordQueryUtil.textQuery(query), size))
+            .add(prepareSearch(Category.class, queryString ? queryStringQuery(query) : multiMatchQuery(query, "rus", "en"), size));
+        if (users) {
+            request.add(prepareSearch(User.class, queryString ? queryStringQuery(query)
+                : multiMatchQuery(query, "login", "firstName", "lastName", "email"), size));
+        }
+        MultiSearchResponse response;
+        try {
+            response = request.execute().actionGet(properties.getTimeout());
+        } catch (ElasticsearchException e) {
+            log.warn("Global search failed: {}", e.getMessage());
+            return null;
+        }
+
+        MultiSearchResponse.Item[] items = response.getResponses();
+        GlobalSearchResultDTO result = new GlobalSearchResultDTO();
+        result.setWords(toGroup(items[0], Word.class, wordMapper::toDto));
+        result.setCategories(toGroup(items[1], Category.class, categoryMapper::toDto));
+        if (users) {
+            result.setUsers(toGroup(items[2], User.class, UserDTO::new));
+        }
+        return result;
+    }
+
+    @Override
+    public void reindexAll() {
+        elasticsearchIndexService.reindexAll();
+    }
+
+    @Override
+    public List<ReindexStatusDTO> getReindexStatus() {
+        return elasticsearchIndexService.getStatus();
+    }
+
+    private WordSearchPage searchWords(QueryBuilder query, Pageable pageable, boolean facets) {
+        return callElasticsearch(() -> {
+            if (facets) {
+                return searchWithFacets(query, pageable);
+            }
+            Page<Word> words = wordSearchRepository.search(query, pageable);
+            return new WordSearchPage(wordMapper.toDto(words.getContent()), pageable, words.getTotalElements(), false);
+        });
+    }
+
+    /**
+     * Search a page of words and count the hits of the whole search in each category with a terms aggregation,
+     * in a single request. The facets name the categories from the in-memory word index, which keeps them all.
+     */
+    private WordSearchPage searchWithFacets(QueryBuilder query, Pageable pageable) {
+        ElasticsearchPersistentEntity<?> document = elasticsearchTemplate.getPersistentEntityFor(Word.class);
+        SearchRequestBuilder request = elasticsearchTemplate.getClient().prepareSearch(document.getIndexName())
+            .setTypes(document.getIndexType())
+            .setQuery(query)
+            .setFrom(pageable.getOffset())
+            .setSize(pageable.getPageSize())
+            .addAggregation(AggregationBuilders.terms(CATEGORY_FACETS).field("category.id").size(properties.getMaxFacets()));
+        if (pageable.getSort() != null) {
+            for (Sort.Order order : pageable.getSort()) {
+                request.addSort(order.getProperty(), order.isAscending() ? SortOrder.ASC : SortOrder.DESC);
+            }
+        }
+        SearchResponse response = request.get();
+        List<WordDTO> words = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            words.add(wordMapper.toDto(toWord(hit)));
+        }
+        List<CategoryFacetDTO> facets = new ArrayList<>();
+        Terms categories = response.getAggregations().get(CATEGORY_FACETS);
+        for (Terms.Bucket bucket : categories.getBuckets()) {
+            long categoryId = bucket.getKeyAsNumber().longValue();
+            CategoryDTO categoryDTO = wordIndexService.getCategory(categoryId);
+            if (categoryDTO == null) {
+                categoryDTO = new CategoryDTO();
+                categoryDTO.setId(categoryId);
+            }
+            facets.add(new CategoryFacetDTO(categoryDTO, bucket.getDocCount()));
+        }
+        return new WordSearchPage(words, pageable, response.getHits().getTotalHits(), false, facets);
+    }
+
+    private WordSearchSlice scroll(QueryBuilder query, String after, int size) {
+        Client client = elasticsearchTemplate.getClient();
+        TimeValue keepAlive = TimeValue.timeValueMillis(properties.getCursorKeepAlive());
+        // The first page reserves a cursor until its scroll is known, the following pages hold the previous scroll
+        String cursor = after.isEmpty() ? reserveCursor() : after;
+        SearchResponse response;
+        try {
+            response = callElasticsearch(() -> {
+                if (!after.isEmpty()) {
+                    return client.prepareSearchScroll(after).setScroll(keepAlive).get();
+                }
+                ElasticsearchPersistentEntity<?> document = elasticsearchTemplate.getPersistentEntityFor(Word.class);
+                return client.prepareSearch(document.getIndexName()).setTypes(document.getIndexType())
+                    .setQuery(query)
+                    .addSort(SortBuilders.scoreSort())
+                    .addSort(SortBuilders.fieldSort("id").order(SortOrder.ASC))
+                    .setSize(size)
+                    .setScroll(keepAlive)
+                    .get();
+            });
+        } finally {
+            openCursors.remove(cursor);
+        }
+        if (response == null) {
+            return null;
+        }
+        List<WordDTO> words = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            words.add(wordMapper.toDto(toWord(hit)));
+        }
+        if (words.size() < size) {
+            // The last page releases its scroll rather than letting it expire
+            client.prepareClearScroll().addScrollId(response.getScrollId()).execute();
+            return new WordSearchSlice(words, null);
+        }
+        openCursors.put(response.getScrollId(), System.currentTimeMillis() + properties.getCursorKeepAlive());
+        return new WordSearchSlice(words, response.getScrollId());
+    }
+
+    private synchronized String reserveCursor() {
+        long now = System.currentTimeMillis();
+        openCursors.values().removeIf(expiry -> expiry < now);
+        if (openCursors.size() >= properties.getMaxOpenCursors()) {
+            throw new IllegalStateException("More than " + properties.getMaxOpenCursors() + " search cursors are open");
+        }
+        String reservation = UUID.randomUUID().toString();
+        openCursors.put(reservation, now + properties.getCursorKeepAlive());
+        return reservation;
+    }
+
+    private Word toWord(SearchHit hit) {
+        try {
+            return entityMapper.mapToObject(hit.getSourceAsString(), Word.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map the document " + hit.getId() + " to a word", e);
+        }
+    }
+
+    private SearchRequestBuilder prepareSearch(Class<?> entityClass, QueryBuilder query, int size) {
+        ElasticsearchPersistentEntity<?> document = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+        return elasticsearchTemplate.getClient().prepareSearch(document.getIndexName())
+            .setTypes(document.getIndexType())
+            .setQuery(query)
+            .setSize(size);
+    }
+
+    private <T, D> SearchGroupDTO<D> toGroup(MultiSearchResponse.Item item, Class<T> entityClass, Function<T, D> toDto) {
+        if (item.isFailure()) {
+            log.warn("Global search failed for {}: {}", entityClass.getSimpleName(), item.getFailureMessage());
+            return new SearchGroupDTO<>(0, new ArrayList<>());
+        }
+        SearchResponse response = item.getResponse();
+        List<D> hits = new ArrayList<>();
+        for (SearchHit hit : response.getHits().getHits()) {
+            try {
+                hits.add(toDto.apply(entityMapper.mapToObject(hit.getSourceAsString(), entityClass)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not map the document " + hit.getId() + " to a " + entityClass.getSimpleName(), e);
+            }
+        }
+        return new SearchGroupDTO<>(response.getHits().getTotalHits(), hits);
+    }
+
+    /**
+     * @return the result of the search, or null if Elasticsearch is unavailable
+     * @throws IllegalArgumentException if Elasticsearch rejected the search as invalid
+     */
+    private <T> T callElasticsearch(Callable<T> search) {
+        if (!circuitBreaker.tryAcquire()) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        Future<T> future;
+        try {
+            future = executor.submit(search);
+        } catch (RejectedExecutionException e) {
+            log.warn("Too many Elasticsearch searches in flight, falling back to the in-memory word index");
+            circuitBreaker.onFailure();
+            return null;
+        }
+        try {
+            T result = future.get(properties.getTimeout(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+            return result;
+        } catch (TimeoutException e) {
+            log.warn("Elasticsearch search timed out after {} ms, falling back to the in-memory word index", properties.getTimeout());
+        } catch (ExecutionException e) {
+            if (isClientError(ExceptionsHelper.status(e.getCause()))) {
+                // An invalid query or an expired cursor is the fault of the client, Elasticsearch itself is fine
+                circuitBreaker.onSuccess(System.currentTimeMillis() - start);
+                throw new IllegalArgumentException("Elasticsearch rejected the search: " + e.getCause().getMessage(), e.getCause());
+            }
+            log.warn("Elasticsearch search failed, falling back to the in-memory word index: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        future.cancel(true);
+        circuitBreaker.onFailure();
+        return null;
+    }
+
+    /**
+     * Only a malformed search (400) or a missing index or cursor (404) is the fault of the client: a rejected
+     * execution (429) or any other status means Elasticsearch is overloaded or failing.
+     */
+    private static boolean isClientError(RestStatus status) {
+        return status == RestStatus.BAD_REQUEST || status == RestStatus.NOT_FOUND;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.service.dto.GlobalSearchResultDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service searching the words, the categories and the users at once.
+ *
+ * <p>
+ * The searches are checked against the limits of the "application.search" properties, then sent to the search
+ * backend together, so that Elasticsearch receives them in a single multi-search request.
+ * </p>
+ */
+@Service
+public class GlobalSearchService {
+
+    private final Logger log = LoggerFactory.getLogger(GlobalSearchService.class);
+
+    private final SearchBackend searchBackend;
+
+    private final ApplicationProperties.Search properties;
+
+    public GlobalSearchService(SearchBackend searchBackend, ApplicationProperties applicationProperties) {
+        this.searchBackend = searchBackend;
+        this.properties = applicationProperties.getSearch();
+    }
+
+    /**
+     * Search the words, the categories and, if asked, the users matching a query.
+     *
+     * @param query the searched text, or a query string
+     * @param queryString whether the query uses the query string syntax, which must be reserved to administrators
+     * @param users whether to search the users too
+     * @param size the maximum number of hits of each kind
+     * @return the first hits of each kind with their totals, or null if the search backend is unavailable
+     * @throws IllegalArgumentException if the query or the size exceed the search limits
+     */
+    public GlobalSearchResultDTO search(String query, boolean queryString, boolean users, int size) {
+        log.debug("Request to search everything for query {}", query);
+        String trimmed = query == null ? "" : query.trim();
+        if (trimmed.isEmpty() || trimmed.length() > properties.getMaxTermLength()) {
+            throw new IllegalArgumentException("The query is empty or longer than " + properties.getMaxTermLength() + " characters");
+        }
+        if (size > properties.getMaxPageSize()) {
+            throw new IllegalArgumentException("The size is larger than " + properties.getMaxPageSize());
+        }
+        return searchBackend.searchAll(trimmed, queryString, users, size);
+    }
+}
@@ -0,0 +1,169 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.config.Constants;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.User;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.UserRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.GlobalSearchResultDTO;
+import ru.giylmi.dictionary.service.dto.ReindexStatusDTO;
+import ru.giylmi.dictionary.service.dto.SearchGroupDTO;
+import ru.giylmi.dictionary.service.dto.UserDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.dto.WordSearchPage;
+import ru.giylmi.dictionary.service.dto.WordSearchSlice;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The search backend of the "lucene" profile, serving the searches without Elasticsearch.
+ *
+ * <p>
+ * The words are searched in the local Lucene word index, which has no cursors and counts no category for the
+ * faceted searches. The categories and the users, much fewer, are searched in the database, by a case-insensitive
+ * match of the query, a query string being read as plain text.
+ * </p>
+ */
+@Service
+@Profile(Constants.SPRING_PROFILE_LUCENE)
+public class LuceneSearchBackend implements SearchBackend {
+
+    private final Logger log = LoggerFactory.getLogger(LuceneSearchBackend.class);
+
+    private final LuceneWordIndexService luceneWordIndexService;
+
+    private final CategoryRepository categoryRepository;
+
+    private final UserRepository userRepository;
+
+    private final CategoryMapper categoryMapper;
+
+    private final ApplicationProperties.Search searchProperties;
+
+    private volatile ReindexStatusDTO status;
+
+    public LuceneSearchBackend(LuceneWordIndexService luceneWordIndexService, CategoryRepository categoryRepository,
+                               UserRepository userRepository, CategoryMapper categoryMapper,
+                               ApplicationProperties applicationProperties) {
+        this.luceneWordIndexService = luceneWordIndexService;
+        this.categoryRepository = categoryRepository;
+        this.userRepository = userRepository;
+        this.categoryMapper = categoryMapper;
+        this.searchProperties = applicationProperties.getSearch();
+    }
+
+    @Override
+    public WordSearchPage searchWords(String term, Language language, Long categoryId, MatchMode mode, Pageable pageable) {
+        return toPage(luceneWordIndexService.search(term, language, categoryId, mode, pageable), pageable, false);
+    }
+
+    @Override
+    public WordSearchPage searchWordsByText(String text, Pageable pageable, boolean facets) {
+        return toPage(luceneWordIndexService.searchText(text, pageable), pageable, facets);
+    }
+
+    @Override
+    public WordSearchPage searchWordsByQueryString(String query, Pageable pageable, boolean facets) {
+        return toPage(luceneWordIndexService.searchQueryString(query, pageable), pageable, facets);
+    }
+
+    @Override
+    public WordSearchSlice searchWordsByTextAfter(String text, String after, int size) {
+        throw new IllegalArgumentException("Search cursors are not supported by the local word index");
+    }
+
+    @Override
+    public WordSearchSlice searchWordsByQueryStringAfter(String query, String after, int size) {
+        throw new IllegalArgumentException("Search cursors are not supported by the local word index");
+    }
+
+    @Override
+    public List<CategoryDTO> searchCategories(String query, boolean queryString, int size) {
+        return categoryRepository.findAllByNameLike(toPattern(query), new PageRequest(0, size)).getContent().stream()
+            .map(categoryMapper::toDto)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<User> searchUsers(String query) {
+        return userRepository.findAllByNameLike(toPattern(query), new PageRequest(0, searchProperties.getMaxPageSize())).getContent();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public GlobalSearchResultDTO searchAll(String query, boolean queryString, boolean users, int size) {
+        Pageable pageable = new PageRequest(0, size);
+        Page<WordDTO> words = queryString ? luceneWordIndexService.searchQueryString(query, pageable)
+            : luceneWordIndexService.searchText(query, pageable);
+        Page<Category> categories = categoryRepository.findAllByNameLike(toPattern(query), pageable);
+        GlobalSearchResultDTO result = new GlobalSearchResultDTO();
+        result.setWords(new SearchGroupDTO<>(words.getTotalElements(), words.getContent()));
+        result.setCategories(new SearchGroupDTO<>(categories.getTotalElements(),
+            categories.getContent().stream().map(categoryMapper::toDto).collect(Collectors.toList())));
+        if (users) {
+            Page<User> foundUsers = userRepository.findAllByNameLike(toPattern(query), pageable);
+            result.setUsers(new SearchGroupDTO<>(foundUsers.getTotalElements(),
+                foundUsers.getContent().stream().map(UserDTO::new).collect(Collectors.toList())));
+        }
+        return result;
+    }
+
+    /**
+     * Rebuild the local word index, the categories and the users being read from the database.
+     */
+    @Override
+    @Async
+    @Timed
+    public void reindexAll() {
+        ReindexStatusDTO running = new ReindexStatusDTO();
+        running.setEntity("Word");
+        running.setState(ReindexStatusDTO.State.RUNNING);
+        running.setStartedDate(Instant.now());
+        status = running;
+        try {
+            luceneWordIndexService.reindex();
+            running.setState(ReindexStatusDTO.State.DONE);
+            running.setPercentDone(100);
+        } catch (RuntimeException e) {
+            log.error("Lucene: Reindexing failed", e);
+            running.setState(ReindexStatusDTO.State.FAILED);
+            running.setError(String.valueOf(e.getMessage()));
+        } finally {
+            running.setFinishedDate(Instant.now());
+        }
+    }
+
+    @Override
+    public List<ReindexStatusDTO> getReindexStatus() {
+        ReindexStatusDTO current = status;
+        return current == null ? Collections.emptyList() : Collections.singletonList(current);
+    }
+
+    private static WordSearchPage toPage(Page<WordDTO> page, Pageable pageable, boolean facets) {
+        return new WordSearchPage(page.getContent(), pageable, page.getTotalElements(), false,
+            facets ? Collections.emptyList() : null);
+    }
+
+    private static String toPattern(String query) {
+        return "%" + query.trim().toLowerCase().replaceAll("[!%_]", "!$0") + "%";
+    }
+}
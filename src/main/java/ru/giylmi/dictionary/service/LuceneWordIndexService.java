@@ -0,0 +1,437 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.config.Constants;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.repository.SearchTombstoneRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.index.TermNormalizer;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import com.codahale.metrics.annotation.Timed;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service keeping a Lucene index of the words on the local disk, to serve the word searches in-process instead of
+ * from Elasticsearch. It is only active with the "lucene" profile.
+ *
+ * <p>
+ * The index files are memory mapped. Each instance keeps its own index, and reads the words changed in the database
+ * since its last read, along with the deletions recorded as tombstones, so that the changes made through any instance
+ * reach every index. The reads overlap by a few seconds, for the transactions committing after their modified date,
+ * and the date of the last read is stored in the index commit.
+ * </p>
+ *
+ * <p>
+ * The index is rebuilt from the database when it was never built, when its last read is older than the tombstones
+ * kept, or when a full reindex is asked. A rebuild failing midway is rolled back, leaving the previous index.
+ * The documents only keep the id of their category, whose names are read from the in-memory word index, so that
+ * a change to a category needs no update of its words.
+ * </p>
+ */
+@Service
+@Profile(Constants.SPRING_PROFILE_LUCENE)
+public class LuceneWordIndexService {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    /**
+     * How often the date of the last read is committed when no word changed, in milliseconds.
+     */
+    private static final long IDLE_COMMIT_INTERVAL = 3600000;
+
+    private static final String WATERMARK = "watermark";
+
+    private static final String ID = "id";
+
+    private static final String RUS = "rus";
+
+    private static final String EN = "en";
+
+    private static final String DEFINITION = "definition";
+
+    private static final String CATEGORY_ID = "category.id";
+
+    private static final String KEYWORD = ".keyword";
+
+    private final Logger log = LoggerFactory.getLogger(LuceneWordIndexService.class);
+
+    private final WordRepository wordRepository;
+
+    private final SearchTombstoneRepository searchTombstoneRepository;
+
+    private final WordIndexService wordIndexService;
+
+    private final ApplicationProperties.Lucene properties;
+
+    private Analyzer analyzer;
+
+    private Directory directory;
+
+    private IndexWriter writer;
+
+    private volatile SearcherManager searcherManager;
+
+    /**
+     * The date of the last read of the changed words, or null if the index was never built.
+     */
+    private volatile Instant watermark;
+
+    private Instant committedWatermark;
+
+    public LuceneWordIndexService(WordRepository wordRepository, SearchTombstoneRepository searchTombstoneRepository,
+                                  WordIndexService wordIndexService, ApplicationProperties applicationProperties) {
+        this.wordRepository = wordRepository;
+        this.searchTombstoneRepository = searchTombstoneRepository;
+        this.wordIndexService = wordIndexService;
+        this.properties = applicationProperties.getLucene();
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Map<String, Analyzer> analyzers = new HashMap<>();
+        analyzers.put(RUS, new RussianAnalyzer());
+        analyzers.put(DEFINITION, new RussianAnalyzer());
+        analyzers.put(EN, new EnglishAnalyzer());
+        analyzer = new PerFieldAnalyzerWrapper(new KeywordAnalyzer(), analyzers);
+        directory = new MMapDirectory(Paths.get(properties.getPath(), "word"));
+        openWriter();
+        String committed = writer.getCommitData().get(WATERMARK);
+        watermark = committed == null ? null : Instant.ofEpochMilli(Long.parseLong(committed));
+        committedWatermark = watermark;
+        log.info("Opened the local word index in {} with {} words", properties.getPath(), writer.numDocs());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        IOUtils.close(searcherManager, writer, directory, analyzer);
+    }
+
+    /**
+     * Build the index when it was never built, typically on the first start of the application, or when it missed
+     * deletions whose tombstones are already purged.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIfStale() {
+        Instant since = watermark == null ? null : watermark.minusMillis(properties.getSyncOverlap());
+        if (since == null || since.isBefore(Instant.now().minusMillis(properties.getTombstoneRetention()))) {
+            reindex();
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the database, reading words page by page in id order. The searches keep reading
+     * the previous index until the new one is committed, and the reads of the changed words wait for the end of the
+     * rebuild, then start from its beginning, so that none of them is lost. If the rebuild fails, it is rolled back
+     * and the previous index stays.
+     */
+    @Timed
+    public synchronized void reindex() {
+        log.debug("Loading the local word index");
+        Instant startedDate = Instant.now();
+        try {
+            writer.deleteAll();
+            int count = 0;
+            List<WordDTO> page = wordRepository.findAllAsDtoAfter(Long.MIN_VALUE, new PageRequest(0, LOAD_PAGE_SIZE));
+            while (!page.isEmpty()) {
+                for (WordDTO wordDTO : page) {
+                    writer.addDocument(toDocument(wordDTO));
+                }
+                count += page.size();
+                if (page.size() < LOAD_PAGE_SIZE) {
+                    break;
+                }
+                page = wordRepository.findAllAsDtoAfter(page.get(page.size() - 1).getId(), new PageRequest(0, LOAD_PAGE_SIZE));
+            }
+            commit(startedDate);
+            log.info("Loaded {} words into the local word index", count);
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw new IllegalStateException("Could not rebuild the local word index", e);
+        }
+    }
+
+    /**
+     * Apply the changes made to the words in the database since the last read, by any instance. Does nothing until
+     * the index is built.
+     */
+    @Scheduled(fixedDelayString = "${application.lucene.sync-delay:1000}")
+    public synchronized void sync() {
+        if (watermark == null) {
+            return;
+        }
+        Instant startedDate = Instant.now();
+        Instant since = watermark.minusMillis(properties.getSyncOverlap());
+        int count = 0;
+        try {
+            List<WordDTO> page = wordRepository.findAllAsDtoModifiedSinceAfter(since, Long.MIN_VALUE, new PageRequest(0, LOAD_PAGE_SIZE));
+            while (!page.isEmpty()) {
+                for (WordDTO wordDTO : page) {
+                    writer.updateDocument(new Term(ID, wordDTO.getId().toString()), toDocument(wordDTO));
+                }
+                count += page.size();
+                if (page.size() < LOAD_PAGE_SIZE) {
+                    break;
+                }
+                page = wordRepository.findAllAsDtoModifiedSinceAfter(since, page.get(page.size() - 1).getId(),
+                    new PageRequest(0, LOAD_PAGE_SIZE));
+            }
+            List<Long> deletedIds = searchTombstoneRepository.findEntityIdsDeletedSince(EntityType.WORD, since);
+            for (Long id : deletedIds) {
+                writer.deleteDocuments(new Term(ID, id.toString()));
+            }
+            count += deletedIds.size();
+        } catch (RuntimeException e) {
+            // The changes read so far are committed with the next read, which starts from the same date
+            log.warn("Could not read the changed words: {}", e.getMessage());
+            return;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not update the local word index", e);
+        }
+        try {
+            if (count > 0 || committedWatermark.isBefore(startedDate.minusMillis(IDLE_COMMIT_INTERVAL))) {
+                commit(startedDate);
+            } else {
+                watermark = startedDate;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not update the local word index", e);
+        }
+    }
+
+    /**
+     * Purge the tombstones older than the retention. The indices that did not read them since are rebuilt on startup.
+     */
+    @Scheduled(cron = "0 30 1 * * ?")
+    public void purgeTombstones() {
+        Instant before = Instant.now().minusMillis(properties.getTombstoneRetention());
+        for (EntityType entityType : EntityType.values()) {
+            searchTombstoneRepository.deleteDeletedBefore(entityType, before);
+        }
+    }
+
+    /**
+     * Search the words whose term matches the given one.
+     *
+     * @param term the searched term
+     * @param language the language of the term, or null to search both languages
+     * @param categoryId the id of the category of the words, or null for any category
+     * @param mode how the term is matched
+     * @param pageable the pagination information, whose sort is ignored
+     * @return the page of words, best matches first
+     */
+    public Page<WordDTO> search(String term, Language language, Long categoryId, MatchMode mode, Pageable pageable) {
+        String key = TermNormalizer.normalize(term);
+        if (key == null) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+        BooleanQuery.Builder terms = new BooleanQuery.Builder();
+        for (Language searched : language == null ? Language.values() : new Language[]{language}) {
+            String field = searched == Language.RU ? RUS : EN;
+            if (mode == MatchMode.PREFIX) {
+                terms.add(new PrefixQuery(new Term(field + KEYWORD, key)), BooleanClause.Occur.SHOULD);
+            } else {
+                terms.add(new BoostQuery(new TermQuery(new Term(field + KEYWORD, key)), 10), BooleanClause.Occur.SHOULD);
+                if (mode == MatchMode.MATCH) {
+                    addIfPresent(terms, new QueryBuilder(analyzer).createBooleanQuery(field, term, BooleanClause.Occur.MUST));
+                }
+            }
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(terms.build(), BooleanClause.Occur.MUST);
+        if (categoryId != null) {
+            query.add(new TermQuery(new Term(CATEGORY_ID, categoryId.toString())), BooleanClause.Occur.FILTER);
+        }
+        return search(query.build(), pageable);
+    }
+
+    /**
+     * Search the words matching a plain text: exact matches come first, then the words starting with the text, then
+     * the words matching its stemmed words in any field.
+     *
+     * @param text the searched text
+     * @param pageable the pagination information, whose sort is ignored
+     * @return the page of words, best matches first
+     */
+    public Page<WordDTO> searchText(String text, Pageable pageable) {
+        String key = TermNormalizer.normalize(text.trim().replaceAll("\\*+$", ""));
+        if (key == null) {
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+        for (String field : new String[]{RUS, EN}) {
+            query.add(new BoostQuery(new TermQuery(new Term(field + KEYWORD, key)), 10), BooleanClause.Occur.SHOULD);
+            query.add(new BoostQuery(new PrefixQuery(new Term(field + KEYWORD, key)), 2), BooleanClause.Occur.SHOULD);
+            addIfPresent(query, queryBuilder.createBooleanQuery(field, key));
+        }
+        addIfPresent(query, queryBuilder.createBooleanQuery(DEFINITION, key));
+        return search(query.build(), pageable);
+    }
+
+    /**
+     * Search the words matching a query in the Lucene query syntax, which the query strings of Elasticsearch share.
+     *
+     * @param query the query string
+     * @param pageable the pagination information, whose sort is ignored
+     * @return the page of words, best matches first
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public Page<WordDTO> searchQueryString(String query, Pageable pageable) {
+        try {
+            return search(new QueryParser(RUS, analyzer).parse(query), pageable);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Malformed query string: " + e.getMessage(), e);
+        }
+    }
+
+    private Page<WordDTO> search(Query query, Pageable pageable) {
+        try {
+            // The manager is replaced when a failed rebuild is rolled back, the searcher goes back to its own
+            SearcherManager manager = searcherManager;
+            IndexSearcher searcher = manager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, pageable.getOffset() + pageable.getPageSize());
+                List<WordDTO> words = new ArrayList<>();
+                for (int i = pageable.getOffset(); i < topDocs.scoreDocs.length; i++) {
+                    words.add(toDto(searcher.doc(topDocs.scoreDocs[i].doc)));
+                }
+                return new PageImpl<>(words, pageable, topDocs.totalHits);
+            } finally {
+                manager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not search the local word index", e);
+        }
+    }
+
+    private void openWriter() throws IOException {
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, true, null);
+    }
+
+    /**
+     * Commit the pending changes, with the date from which the changed words were read.
+     */
+    private void commit(Instant readDate) throws IOException {
+        writer.setCommitData(Collections.singletonMap(WATERMARK, String.valueOf(readDate.toEpochMilli())));
+        writer.commit();
+        searcherManager.maybeRefresh();
+        watermark = readDate;
+        committedWatermark = readDate;
+    }
+
+    /**
+     * Drop the pending changes, which closes the writer, and open a new one on the last commit.
+     */
+    private void rollback() {
+        SearcherManager previousSearcherManager = searcherManager;
+        try {
+            writer.rollback();
+            openWriter();
+            previousSearcherManager.close();
+        } catch (IOException e) {
+            log.error("Could not roll back the local word index", e);
+        }
+    }
+
+    private static void addIfPresent(BooleanQuery.Builder query, Query clause) {
+        // The analyzers leave no query when the text is made of stop words only
+        if (clause != null) {
+            query.add(clause, BooleanClause.Occur.SHOULD);
+        }
+    }
+
+    private static Document toDocument(WordDTO wordDTO) {
+        Document document = new Document();
+        document.add(new StringField(ID, wordDTO.getId().toString(), Field.Store.YES));
+        addTerm(document, RUS, wordDTO.getRus());
+        addTerm(document, EN, wordDTO.getEn());
+        if (wordDTO.getDefinition() != null) {
+            document.add(new TextField(DEFINITION, wordDTO.getDefinition(), Field.Store.YES));
+        }
+        if (wordDTO.getCat() != null && wordDTO.getCat().getId() != null) {
+            document.add(new StringField(CATEGORY_ID, wordDTO.getCat().getId().toString(), Field.Store.YES));
+        }
+        return document;
+    }
+
+    private static void addTerm(Document document, String field, String term) {
+        if (term == null) {
+            return;
+        }
+        document.add(new TextField(field, term, Field.Store.YES));
+        String key = TermNormalizer.normalize(term);
+        if (key != null) {
+            document.add(new StringField(field + KEYWORD, key, Field.Store.NO));
+        }
+    }
+
+    private WordDTO toDto(Document document) {
+        WordDTO wordDTO = new WordDTO();
+        wordDTO.setId(Long.valueOf(document.get(ID)));
+        wordDTO.setRus(document.get(RUS));
+        wordDTO.setEn(document.get(EN));
+        wordDTO.setDefinition(document.get(DEFINITION));
+        String categoryId = document.get(CATEGORY_ID);
+        if (categoryId != null) {
+            CategoryDTO categoryDTO = wordIndexService.getCategory(Long.parseLong(categoryId));
+            if (categoryDTO == null) {
+                categoryDTO = new CategoryDTO();
+                categoryDTO.setId(Long.valueOf(categoryId));
+            }
+            wordDTO.setCat(categoryDTO);
+        }
+        return wordDTO;
+    }
+}
@@ -0,0 +1,122 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.domain.User;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.GlobalSearchResultDTO;
+import ru.giylmi.dictionary.service.dto.ReindexStatusDTO;
+import ru.giylmi.dictionary.service.dto.WordSearchPage;
+import ru.giylmi.dictionary.service.dto.WordSearchSlice;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * The engine serving the searches: Elasticsearch by default, or the local Lucene index with the "lucene" profile,
+ * which then runs without Elasticsearch at all.
+ *
+ * <p>
+ * The searches reach the backend once checked against the search limits. A backend returns null when it is
+ * unavailable, so that the word searches can fall back to the in-memory word index.
+ * </p>
+ */
+public interface SearchBackend {
+
+    /**
+     * Search the words whose term matches the given one.
+     *
+     * @param term the searched term
+     * @param language the language of the term, or null to search both languages
+     * @param categoryId the id of the category of the words, or null for any category
+     * @param mode how the term is matched
+     * @param pageable the pagination information
+     * @return the page of words, best matches first, or null if the backend is unavailable
+     */
+    WordSearchPage searchWords(String term, Language language, Long categoryId, MatchMode mode, Pageable pageable);
+
+    /**
+     * Search the words matching a plain text in any of their fields.
+     *
+     * @param text the searched text
+     * @param pageable the pagination information
+     * @param facets whether to count the hits in each category
+     * @return the page of words, best matches first, or null if the backend is unavailable
+     */
+    WordSearchPage searchWordsByText(String text, Pageable pageable, boolean facets);
+
+    /**
+     * Search the words matching a raw query string.
+     *
+     * @param query the query, in the query string syntax
+     * @param pageable the pagination information
+     * @param facets whether to count the hits in each category
+     * @return the page of words, or null if the backend is unavailable
+     * @throws IllegalArgumentException if the query is rejected as invalid
+     */
+    WordSearchPage searchWordsByQueryString(String query, Pageable pageable, boolean facets);
+
+    /**
+     * Search the words matching a plain text, reading the page from a cursor.
+     *
+     * @param text the searched text, ignored after the first page
+     * @param after the cursor of the previous page, empty for the first page
+     * @param size the page size
+     * @return the words of the page, or null if the backend is unavailable
+     * @throws IllegalArgumentException if the cursor is malformed or has expired, or if the backend has no cursors
+     * @throws IllegalStateException if the first page is requested while too many cursors are open
+     */
+    WordSearchSlice searchWordsByTextAfter(String text, String after, int size);
+
+    /**
+     * Search the words matching a raw query string, reading the page from a cursor.
+     *
+     * @param query the query, ignored after the first page
+     * @param after the cursor of the previous page, empty for the first page
+     * @param size the page size
+     * @return the words of the page, or null if the backend is unavailable
+     * @throws IllegalArgumentException if the cursor is malformed or has expired, or if the backend has no cursors
+     * @throws IllegalStateException if the first page is requested while too many cursors are open
+     */
+    WordSearchSlice searchWordsByQueryStringAfter(String query, String after, int size);
+
+    /**
+     * Search the categories matching a query.
+     *
+     * @param query the searched text, or a query string
+     * @param queryString whether the query uses the query string syntax
+     * @param size the maximum number of categories
+     * @return the first categories found
+     */
+    List<CategoryDTO> searchCategories(String query, boolean queryString, int size);
+
+    /**
+     * Search the users matching a query string.
+     *
+     * @param query the query
+     * @return the users found
+     */
+    List<User> searchUsers(String query);
+
+    /**
+     * Search the words, the categories and, if asked, the users matching a query.
+     *
+     * @param query the searched text, or a query string
+     * @param queryString whether the query uses the query string syntax
+     * @param users whether to search the users too
+     * @param size the maximum number of hits of each kind
+     * @return the first hits of each kind with their totals, or null if the backend is unavailable
+     */
+    GlobalSearchResultDTO searchAll(String query, boolean queryString, boolean users, int size);
+
+    /**
+     * Rebuild the indices from the database, in the background.
+     */
+    void reindexAll();
+
+    /**
+     * @return the progress of the running or last reindex of each index
+     */
+    List<ReindexStatusDTO> getReindexStatus();
+}
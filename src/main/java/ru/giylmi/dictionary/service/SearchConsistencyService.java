@@ -0,0 +1,260 @@
+package ru.giylmi.dictionary.service;
+
+import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.config.Constants;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.User;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.service.dto.SearchConsistencyDTO;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Service comparing the database with the Elasticsearch indices, and repairing the documents that drifted.
+ *
+ * <p>
+ * The check is a full diff, done in id ranges of a chunk: the rows of each range are read along with the documents
+ * of the same range, and compared one by one. Only the ids and the stamps are read on both sides, that is the last
+ * modified dates of the row and of its many-to-one associations, and the stamps the documents were written with, so
+ * each range costs an index scan on both sides rather than the transfer of the rows and documents.
+ * The ids of the missing, extra or different documents are sent to the search outbox, which re-sends the rows
+ * and deletes the documents of the deleted rows.
+ * </p>
+ *
+ * <p>
+ * A change committed while its range is being compared may be reported, and sent again harmlessly. A change that
+ * leaves the last modified dates unchanged, as a bulk update, is not detected.
+ * </p>
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class SearchConsistencyService {
+
+    private static final Map<EntityType, Class<?>> ENTITY_CLASSES = new LinkedHashMap<>();
+
+    static {
+        ENTITY_CLASSES.put(EntityType.CATEGORY, Category.class);
+        ENTITY_CLASSES.put(EntityType.WORD, Word.class);
+        ENTITY_CLASSES.put(EntityType.USER, User.class);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(SearchConsistencyService.class);
+
+    private final ElasticsearchIndexService elasticsearchIndexService;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final SearchEntityReader searchEntityReader;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Consistency properties;
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private final Map<EntityType, SearchConsistencyDTO> statuses = new EnumMap<>(EntityType.class);
+
+    public SearchConsistencyService(ElasticsearchIndexService elasticsearchIndexService,
+                                    SearchOutboxService searchOutboxService, SearchEntityReader searchEntityReader,
+                                    ElasticsearchTemplate elasticsearchTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    ApplicationProperties applicationProperties) {
+        this.elasticsearchIndexService = elasticsearchIndexService;
+        this.searchOutboxService = searchOutboxService;
+        this.searchEntityReader = searchEntityReader;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getConsistency();
+    }
+
+    /**
+     * Check every entity in the background.
+     */
+    @Async
+    @Scheduled(initialDelayString = "${application.consistency.delay:86400000}",
+        fixedDelayString = "${application.consistency.delay:86400000}")
+    public void checkInBackground() {
+        check();
+    }
+
+    /**
+     * Check every entity, and repair the divergent documents if enabled. Does nothing if a check or a reindex is
+     * already running, as a reindex would be reported as drift.
+     *
+     * @return true if the check was performed
+     */
+    @Timed
+    public boolean check() {
+        if (elasticsearchIndexService.isReindexing()) {
+            log.warn("Elasticsearch: Consistency check skipped, a reindex is running");
+            return false;
+        }
+        if (!checking.compareAndSet(false, true)) {
+            log.warn("Elasticsearch: A consistency check is already running");
+            return false;
+        }
+        try {
+            for (Map.Entry<EntityType, Class<?>> entity : ENTITY_CLASSES.entrySet()) {
+                checkForClass(entity.getKey(), entity.getValue());
+            }
+        } finally {
+            checking.set(false);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if a check or a reindex is running, so that a check would be skipped
+     */
+    public boolean isBusy() {
+        return checking.get() || elasticsearchIndexService.isReindexing();
+    }
+
+    /**
+     * @return the result of the running or last check of each entity
+     */
+    public List<SearchConsistencyDTO> getStatus() {
+        synchronized (statuses) {
+            return statuses.values().stream()
+                .sorted(Comparator.comparing(SearchConsistencyDTO::getEntity))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private <T> void checkForClass(EntityType entityType, Class<T> entityClass) {
+        SearchConsistencyDTO status = new SearchConsistencyDTO();
+        status.setEntity(entityClass.getSimpleName());
+        status.setState(SearchConsistencyDTO.State.RUNNING);
+        status.setRepaired(properties.isRepair());
+        status.setStartedDate(Instant.now());
+        synchronized (statuses) {
+            statuses.put(entityType, status);
+        }
+        try {
+            ElasticsearchPersistentEntity<T> document = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+            List<String> associations = searchEntityReader.getEmbeddedAssociations(entityClass);
+            Long lastId = null;
+            boolean lastRange;
+            do {
+                TreeMap<Long, long[]> rows = new TreeMap<>(searchEntityReader.readStamps(entityClass, lastId, properties.getChunkSize()));
+                lastRange = rows.size() < properties.getChunkSize();
+                // The last range is left open to catch the documents of the rows deleted after the last id
+                Long highId = lastRange ? null : rows.lastKey();
+                Map<Long, long[]> documents = readDocuments(document, associations, lastId, highId);
+                compare(entityType, rows, documents, status);
+                lastId = highId;
+            } while (!lastRange);
+            status.setState(SearchConsistencyDTO.State.DONE);
+            log.info("Elasticsearch: Checked {} rows of {}, {} missing, {} extra and {} different documents",
+                status.getChecked(), status.getEntity(), status.getMissing(), status.getExtra(), status.getDifferent());
+        } catch (RuntimeException e) {
+            log.error("Elasticsearch: Consistency check of {} failed", entityClass.getSimpleName(), e);
+            status.setState(SearchConsistencyDTO.State.FAILED);
+            status.setError(e.getMessage());
+        } finally {
+            status.setFinishedDate(Instant.now());
+        }
+    }
+
+    private Map<Long, long[]> readDocuments(ElasticsearchPersistentEntity<?> document, List<String> associations,
+                                            Long lowId, Long highId) {
+        String[] stampFields = new String[associations.size() + 1];
+        stampFields[0] = SearchDocumentService.STAMP;
+        for (int i = 0; i < associations.size(); i++) {
+            stampFields[i + 1] = associations.get(i) + "." + SearchDocumentService.STAMP;
+        }
+        Map<Long, long[]> documents = new HashMap<>();
+        Long fromId = lowId;
+        SearchHit[] hits;
+        do {
+            hits = elasticsearchTemplate.getClient().prepareSearch(document.getIndexName())
+                .setTypes(document.getIndexType())
+                .setQuery(QueryBuilders.rangeQuery("id").gt(fromId).lte(highId))
+                .setFetchSource(stampFields, null)
+                .addSort("id", SortOrder.ASC)
+                .setSize(properties.getChunkSize())
+                .get().getHits().getHits();
+            for (SearchHit hit : hits) {
+                fromId = Long.valueOf(hit.getId());
+                Map<String, Object> source = hit.getSource();
+                long[] stamp = new long[stampFields.length];
+                stamp[0] = toStamp(source);
+                for (int i = 0; i < associations.size(); i++) {
+                    Object association = source == null ? null : source.get(associations.get(i));
+                    stamp[i + 1] = association instanceof Map ? toStamp((Map<?, ?>) association) : 0;
+                }
+                documents.put(fromId, stamp);
+            }
+        } while (hits.length == properties.getChunkSize());
+        return documents;
+    }
+
+    /**
+     * A document written before the stamps were introduced has none, and is reported as different.
+     */
+    private static long toStamp(Map<?, ?> source) {
+        Object stamp = source == null ? null : source.get(SearchDocumentService.STAMP);
+        return stamp instanceof Number ? ((Number) stamp).longValue() : -1;
+    }
+
+    private void compare(EntityType entityType, Map<Long, long[]> rows, Map<Long, long[]> documents,
+                         SearchConsistencyDTO status) {
+        status.setChecked(status.getChecked() + rows.size());
+        status.setRanges(status.getRanges() + 1);
+        List<Long> divergentIds = new ArrayList<>();
+        for (Map.Entry<Long, long[]> row : rows.entrySet()) {
+            long[] stamp = documents.get(row.getKey());
+            if (stamp == null) {
+                status.setMissing(status.getMissing() + 1);
+                divergentIds.add(row.getKey());
+            } else if (!Arrays.equals(stamp, row.getValue())) {
+                status.setDifferent(status.getDifferent() + 1);
+                divergentIds.add(row.getKey());
+            }
+        }
+        for (Long id : documents.keySet()) {
+            if (!rows.containsKey(id)) {
+                status.setExtra(status.getExtra() + 1);
+                divergentIds.add(id);
+            }
+        }
+        if (divergentIds.isEmpty()) {
+            return;
+        }
+        status.setMismatchedRanges(status.getMismatchedRanges() + 1);
+        if (properties.isRepair()) {
+            transactionTemplate.execute(transactionStatus -> {
+                searchOutboxService.enqueue(entityType, divergentIds);
+                return null;
+            });
+        }
+    }
+}
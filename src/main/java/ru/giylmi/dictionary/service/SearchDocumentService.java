@@ -0,0 +1,100 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.Constants;
+import ru.giylmi.dictionary.domain.AbstractAuditingEntity;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.Word;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Service building the Elasticsearch documents of the entities, for the search outbox and the reindex.
+ *
+ * <p>
+ * Documents are written with an external version, the last modified date of the entity in milliseconds, so that a
+ * writer holding an older read of a row cannot overwrite the document written from a newer one. A word document
+ * embeds its category, and takes the latest of both dates.
+ * </p>
+ *
+ * <p>
+ * Each document, and each entity embedded in it, also carries its own last modified date in milliseconds as a stamp,
+ * so that the consistency check compares the stamps of the documents with the dates of the rows without reading
+ * either in full.
+ * </p>
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class SearchDocumentService {
+
+    /**
+     * The field of the documents holding their stamp.
+     */
+    public static final String STAMP = "stamp";
+
+    private final EntityMapper entityMapper;
+
+    private final ObjectMapper objectMapper;
+
+    public SearchDocumentService(EntityMapper entityMapper, ObjectMapper objectMapper) {
+        this.entityMapper = entityMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param entity the indexed entity
+     * @return the source of its document
+     */
+    public String toSource(Object entity) {
+        try {
+            ObjectNode source = (ObjectNode) objectMapper.readTree(entityMapper.mapToString(entity));
+            source.put(STAMP, getStamp(entity));
+            if (entity instanceof Word && source.path("category").isObject()) {
+                ((ObjectNode) source.get("category")).put(STAMP, getStamp(((Word) entity).getCategory()));
+            }
+            return objectMapper.writeValueAsString(source);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map " + entity + " to a document", e);
+        }
+    }
+
+    /**
+     * @param entity the indexed entity
+     * @return the external version of its document
+     */
+    public long getVersion(Object entity) {
+        if (entity instanceof Word) {
+            Word word = (Word) entity;
+            long version = getStamp(word);
+            return word.getCategory() == null ? version : Math.max(version, getStamp(word.getCategory()));
+        }
+        return getStamp(entity);
+    }
+
+    /**
+     * @param entity the indexed entity, or an entity embedded in a document
+     * @return its own last modified date in milliseconds, or 0 if it has none
+     */
+    public long getStamp(Object entity) {
+        if (entity instanceof Word) {
+            return toMillis(((Word) entity).getLastModifiedDate());
+        }
+        if (entity instanceof Category) {
+            return toMillis(((Category) entity).getLastModifiedDate());
+        }
+        if (entity instanceof AbstractAuditingEntity) {
+            return toMillis(((AbstractAuditingEntity) entity).getLastModifiedDate());
+        }
+        return 0;
+    }
+
+    private static long toMillis(Instant date) {
+        return date == null ? 0 : date.toEpochMilli();
+    }
+}
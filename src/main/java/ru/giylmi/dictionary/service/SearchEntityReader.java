@@ -0,0 +1,142 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.Constants;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service reading the indexed entities from the database in id order, for the reindex and the consistency check.
+ *
+ * <p>
+ * The documents embed the many-to-one associations of their entity, which are read along with it.
+ * </p>
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class SearchEntityReader {
+
+    private static final String LAST_MODIFIED_DATE = "lastModifiedDate";
+
+    private final EntityManager entityManager;
+
+    public SearchEntityReader(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param entityClass the class of the indexed entity
+     * @return the names of its many-to-one associations, which its document embeds
+     */
+    public List<String> getEmbeddedAssociations(Class<?> entityClass) {
+        List<String> associations = new ArrayList<>();
+        for (SingularAttribute<?, ?> attribute : entityManager.getMetamodel().entity(entityClass).getSingularAttributes()) {
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE) {
+                associations.add(attribute.getName());
+            }
+        }
+        associations.sort(null);
+        return associations;
+    }
+
+    /**
+     * Read a chunk of entities in id order, with the many-to-one associations their documents embed.
+     *
+     * @param entityClass the class of the indexed entity
+     * @param lastId the id after which the chunk starts, or null to start at the first entity
+     * @param modifiedSince if not null, only the entities modified since then are read
+     * @param size the maximum number of entities
+     * @return the entities
+     */
+    public <T> List<T> readChunk(Class<T> entityClass, Object lastId, Instant modifiedSince, int size) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(entityClass);
+        Root<T> root = query.from(entityClass);
+        // The associations are fetched in the same query
+        getEmbeddedAssociations(entityClass).forEach(association -> root.fetch(association, JoinType.LEFT));
+        query.where(after(builder, root, lastId, modifiedSince));
+        query.orderBy(builder.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(size).getResultList();
+    }
+
+    /**
+     * Read the stamps of a chunk of entities in id order, without loading the entities: the last modified date of
+     * each entity, followed by the last modified date of each association of {@link #getEmbeddedAssociations}.
+     *
+     * @param entityClass the class of the indexed entity, its associations carrying a last modified date too
+     * @param lastId the id after which the chunk starts, or null to start at the first entity
+     * @param size the maximum number of entities
+     * @return the stamps by id, in milliseconds, 0 standing for a missing date or association
+     */
+    public Map<Long, long[]> readStamps(Class<?> entityClass, Long lastId, int size) {
+        List<String> associations = getEmbeddedAssociations(entityClass);
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<?> root = query.from(entityClass);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get("id"));
+        selections.add(root.get(LAST_MODIFIED_DATE));
+        for (String association : associations) {
+            From<?, ?> join = root.join(association, JoinType.LEFT);
+            selections.add(join.get(LAST_MODIFIED_DATE));
+        }
+        query.multiselect(selections);
+        query.where(after(builder, root, lastId, null));
+        query.orderBy(builder.asc(root.get("id")));
+
+        Map<Long, long[]> stamps = new LinkedHashMap<>();
+        for (Tuple row : entityManager.createQuery(query).setMaxResults(size).getResultList()) {
+            long[] stamp = new long[associations.size() + 1];
+            for (int i = 0; i < stamp.length; i++) {
+                Instant date = (Instant) row.get(i + 1);
+                stamp[i] = date == null ? 0 : date.toEpochMilli();
+            }
+            stamps.put((Long) row.get(0), stamp);
+        }
+        return stamps;
+    }
+
+    /**
+     * @param entityClass the class of the indexed entity, which carries a last modified date
+     * @param modifiedSince the date since which the entities are counted
+     * @return the number of entities modified since the date
+     */
+    public long countModified(Class<?> entityClass, Instant modifiedSince) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<?> root = query.from(entityClass);
+        query.select(builder.count(root)).where(after(builder, root, null, modifiedSince));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate[] after(CriteriaBuilder builder, Root<?> root, Object lastId, Instant modifiedSince) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (lastId != null) {
+            Path<Comparable<Object>> id = root.get("id");
+            predicates.add(builder.greaterThan(id, (Comparable<Object>) lastId));
+        }
+        if (modifiedSince != null) {
+            predicates.add(builder.greaterThanOrEqualTo(root.<Instant>get(LAST_MODIFIED_DATE), modifiedSince));
+        }
+        return predicates.toArray(new Predicate[predicates.size()]);
+    }
+}
@@ -0,0 +1,422 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.config.Constants;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.User;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.SearchOutboxRepository;
+import ru.giylmi.dictionary.repository.UserRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+
+import com.codahale.metrics.annotation.Timed;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service draining the search outbox into Elasticsearch, unless the "lucene" profile is active.
+ *
+ * <p>
+ * The outbox is drained in the background: the changes to the same entity are coalesced, and each batch is sent as
+ * one bulk request. Documents carry the external version of their entity, and a document rejected because a newer
+ * version is already indexed counts as sent.
+ * </p>
+ *
+ * <p>
+ * Each instance claims the batches it sends with a lease, so that several instances drain the outbox without sending
+ * the same changes. A change failing on its own, because its entity cannot be read or mapped, or Elasticsearch rejects
+ * it, is retried after a backoff that doubles with each attempt, and parked after too many attempts, without holding
+ * back the others. When the outbox cannot be read or Elasticsearch cannot be reached at all, the instance backs off
+ * the same way before draining the outbox again.
+ * </p>
+ *
+ * <p>
+ * Word documents embed their category, so a change to a category is also copied into the documents of its words,
+ * with partial updates sent page by page.
+ * </p>
+ */
+@Service
+@Profile("!" + Constants.SPRING_PROFILE_LUCENE)
+public class SearchOutboxDispatcher {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxDispatcher.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final WordRepository wordRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final UserRepository userRepository;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final ElasticsearchIndexService elasticsearchIndexService;
+
+    private final SearchDocumentService searchDocumentService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.SearchOutbox properties;
+
+    private long backoff;
+
+    private long retryAt;
+
+    public SearchOutboxDispatcher(SearchOutboxRepository searchOutboxRepository, WordRepository wordRepository,
+                                  CategoryRepository categoryRepository, UserRepository userRepository,
+                                  ElasticsearchTemplate elasticsearchTemplate,
+                                  ElasticsearchIndexService elasticsearchIndexService,
+                                  SearchDocumentService searchDocumentService,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationProperties applicationProperties) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.wordRepository = wordRepository;
+        this.categoryRepository = categoryRepository;
+        this.userRepository = userRepository;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.elasticsearchIndexService = elasticsearchIndexService;
+        this.searchDocumentService = searchDocumentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSearchOutbox();
+    }
+
+    /**
+     * Send the pending changes to Elasticsearch, batch by batch, until the outbox is drained or Elasticsearch cannot
+     * be reached.
+     *
+     * @return the number of outbox entries dispatched
+     */
+    @Scheduled(fixedDelayString = "${application.search-outbox.delay:1000}")
+    @Timed
+    public synchronized int dispatch() {
+        if (System.currentTimeMillis() < retryAt) {
+            return 0;
+        }
+        int dispatched = 0;
+        try {
+            while (true) {
+                List<SearchOutboxEntry> entries = transactionTemplate.execute(status -> claim());
+                if (entries.isEmpty()) {
+                    break;
+                }
+                Batch batch = readBatch(entries);
+                List<SearchOutboxEntry> done;
+                boolean sent = true;
+                try {
+                    done = send(batch);
+                } catch (RuntimeException e) {
+                    log.warn("Could not send {} changes to Elasticsearch: {}", batch.requests.numberOfActions(), e.getMessage());
+                    done = new ArrayList<>();
+                    sent = false;
+                }
+                List<SearchOutboxEntry> dispatchedEntries = done;
+                transactionTemplate.execute(status -> {
+                    searchOutboxRepository.deleteInBatch(dispatchedEntries);
+                    searchOutboxRepository.save(release(batch, dispatchedEntries));
+                    return null;
+                });
+                dispatched += done.size();
+                if (!sent) {
+                    backOff();
+                    break;
+                }
+                backoff = 0;
+                if (entries.size() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read the outbox: {}", e.getMessage());
+            backOff();
+        }
+        if (dispatched > 0) {
+            log.debug("Sent {} changes to Elasticsearch", dispatched);
+        }
+        return dispatched;
+    }
+
+    private void backOff() {
+        backoff = backoff == 0 ? properties.getInitialBackoff() : Math.min(backoff * 2, properties.getMaxBackoff());
+        retryAt = System.currentTimeMillis() + backoff;
+        log.warn("Retrying to send the changes to Elasticsearch in {} ms", backoff);
+    }
+
+    /**
+     * Claim the next batch of available entries, by moving their available date past the end of the lease.
+     */
+    private List<SearchOutboxEntry> claim() {
+        Instant now = Instant.now();
+        List<SearchOutboxEntry> entries = searchOutboxRepository.findAllByParkedFalseAndAvailableDateLessThanEqualOrderByIdAsc(
+            now, new PageRequest(0, properties.getBatchSize()));
+        Instant leasedUntil = now.plusMillis(properties.getLeaseDuration());
+        entries.forEach(entry -> entry.setAvailableDate(leasedUntil));
+        return searchOutboxRepository.save(entries);
+    }
+
+    /**
+     * Make the entries of a batch that were not dispatched available again: at once if the batch could not be sent,
+     * or after a backoff if they failed on their own, unless they failed too many times.
+     */
+    private List<SearchOutboxEntry> release(Batch batch, List<SearchOutboxEntry> done) {
+        Set<SearchOutboxEntry> dispatchedEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+        dispatchedEntries.addAll(done);
+        Instant now = Instant.now();
+        List<SearchOutboxEntry> released = new ArrayList<>();
+        for (SearchOutboxEntry entry : batch.entries) {
+            if (dispatchedEntries.contains(entry)) {
+                continue;
+            }
+            String error = batch.failures.get(entry);
+            if (error == null) {
+                entry.setAvailableDate(now);
+            } else {
+                int attempts = entry.getAttempts() + 1;
+                long delay = properties.getInitialBackoff() << Math.min(attempts - 1, 30);
+                entry.setAttempts(attempts);
+                entry.setAvailableDate(now.plusMillis(Math.min(delay, properties.getMaxBackoff())));
+                entry.setLastError(error.length() > 255 ? error.substring(0, 255) : error);
+                if (attempts >= properties.getMaxAttempts()) {
+                    entry.setParked(true);
+                    log.error("Parked the change to {} {} after {} attempts: {}", entry.getEntityType(), entry.getEntityId(),
+                        attempts, error);
+                }
+            }
+            released.add(entry);
+        }
+        return released;
+    }
+
+    /**
+     * Build the requests sending the claimed entries. An entity that cannot be read or mapped fails its entries alone,
+     * each type of entity being read in its own transaction.
+     */
+    private Batch readBatch(List<SearchOutboxEntry> entries) {
+        Map<EntityType, Map<Long, List<SearchOutboxEntry>>> changes = new EnumMap<>(EntityType.class);
+        for (SearchOutboxEntry entry : entries) {
+            changes.computeIfAbsent(entry.getEntityType(), entityType -> new LinkedHashMap<>())
+                .computeIfAbsent(entry.getEntityId(), entityId -> new ArrayList<>()).add(entry);
+        }
+
+        Client client = elasticsearchTemplate.getClient();
+        // Refreshing once per batch keeps the changes searchable as soon as they are dispatched
+        Batch batch = new Batch(entries, client.prepareBulk().setRefresh(true));
+        for (Map.Entry<EntityType, Map<Long, List<SearchOutboxEntry>>> change : changes.entrySet()) {
+            try {
+                transactionTemplate.execute(status -> {
+                    addRequests(batch, change.getKey(), change.getValue());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                log.warn("Could not read the changed {} entities: {}", change.getKey(), e.getMessage());
+                change.getValue().values().forEach(entityChanges -> batch.fail(entityChanges, String.valueOf(e.getMessage())));
+            }
+        }
+        return batch;
+    }
+
+    private void addRequests(Batch batch, EntityType entityType, Map<Long, List<SearchOutboxEntry>> changes) {
+        Map<Long, ?> entities = findEntities(entityType, changes.keySet());
+        Class<?> entityClass = entityClass(entityType);
+        ElasticsearchPersistentEntity<?> document = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+        List<String> indices = new ArrayList<>();
+        indices.add(document.getIndexName());
+        // A reindex in progress must receive the changes too, as it may have read the entities before them
+        String buildingIndex = elasticsearchIndexService.getBuildingIndex(entityClass);
+        if (buildingIndex != null) {
+            indices.add(buildingIndex);
+        }
+        Client client = elasticsearchTemplate.getClient();
+        for (Map.Entry<Long, List<SearchOutboxEntry>> entityChanges : changes.entrySet()) {
+            String id = entityChanges.getKey().toString();
+            Object entity = entities.get(entityChanges.getKey());
+            String source;
+            try {
+                source = entity == null ? null : searchDocumentService.toSource(entity);
+            } catch (RuntimeException e) {
+                log.warn("Could not map {} {} to a document: {}", entityType, id, e.getMessage());
+                batch.fail(entityChanges.getValue(), String.valueOf(e.getMessage()));
+                continue;
+            }
+            for (String index : indices) {
+                if (source == null) {
+                    batch.requests.add(client.prepareDelete(index, document.getIndexType(), id));
+                } else {
+                    batch.requests.add(client.prepareIndex(index, document.getIndexType(), id).setSource(source)
+                        .setVersion(searchDocumentService.getVersion(entity)).setVersionType(VersionType.EXTERNAL_GTE));
+                }
+                batch.changes.add(entityChanges.getValue());
+            }
+            if (entityType == EntityType.CATEGORY) {
+                batch.categoryChanges.put(entityChanges.getValue(), (Category) entity);
+            }
+        }
+    }
+
+    private List<SearchOutboxEntry> send(Batch batch) {
+        if (batch.requests.numberOfActions() == 0) {
+            return new ArrayList<>();
+        }
+        BulkResponse response = batch.requests.get();
+        Set<List<SearchOutboxEntry>> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (BulkItemResponse item : response.getItems()) {
+            // A conflict is a document already indexed from a newer version of the entity
+            if (item.isFailed() && item.getFailure().getStatus() != RestStatus.CONFLICT) {
+                log.debug("Could not send a change to Elasticsearch: {}", item.getFailureMessage());
+                failed.add(batch.changes.get(item.getItemId()));
+                batch.fail(batch.changes.get(item.getItemId()), item.getFailureMessage());
+            }
+        }
+        Set<List<SearchOutboxEntry>> sent = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<SearchOutboxEntry> done = new ArrayList<>(batch.entries.size());
+        for (List<SearchOutboxEntry> changes : batch.changes) {
+            if (!failed.contains(changes) && sent.add(changes)) {
+                done.addAll(changes);
+            }
+        }
+        // A category change is only done once its words are updated too, otherwise it is retried with the others
+        for (Map.Entry<List<SearchOutboxEntry>, Category> categoryChange : batch.categoryChanges.entrySet()) {
+            if (sent.contains(categoryChange.getKey())
+                && !updateWords(categoryChange.getKey().get(0).getEntityId(), categoryChange.getValue())) {
+                done.removeAll(categoryChange.getKey());
+                batch.fail(categoryChange.getKey(), "Could not copy the category to its words");
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Copy a category into the documents of its words, with one bulk request of partial updates per page of words.
+     *
+     * @param categoryId the id of the category
+     * @param category the category, or null if it was deleted
+     * @return true if every document of the words was updated
+     */
+    private boolean updateWords(Long categoryId, Category category) {
+        ElasticsearchPersistentEntity<?> document = elasticsearchTemplate.getPersistentEntityFor(Word.class);
+        List<String> indices = new ArrayList<>();
+        indices.add(document.getIndexName());
+        String buildingIndex = elasticsearchIndexService.getBuildingIndex(Word.class);
+        if (buildingIndex != null) {
+            indices.add(buildingIndex);
+        }
+        String partialDocument = "{\"category\":" + (category == null ? "null" : searchDocumentService.toSource(category)) + "}";
+
+        Client client = elasticsearchTemplate.getClient();
+        boolean updated = true;
+        long count = 0;
+        List<Long> wordIds = wordRepository.findIdsByCategoryIdAfter(categoryId, Long.MIN_VALUE, new PageRequest(0, properties.getBatchSize()));
+        while (!wordIds.isEmpty()) {
+            BulkRequestBuilder requests = client.prepareBulk();
+            for (Long wordId : wordIds) {
+                for (String index : indices) {
+                    requests.add(client.prepareUpdate(index, document.getIndexType(), wordId.toString()).setDoc(partialDocument));
+                }
+            }
+            try {
+                for (BulkItemResponse item : requests.get().getItems()) {
+                    // A word missing from the index is not there yet, and will be indexed with its current category
+                    if (item.isFailed() && item.getFailure().getStatus() != RestStatus.NOT_FOUND) {
+                        log.debug("Could not copy category {} to word {}: {}", categoryId, item.getId(), item.getFailureMessage());
+                        updated = false;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not copy category {} to its words: {}", categoryId, e.getMessage());
+                return false;
+            }
+            count += wordIds.size();
+            if (wordIds.size() < properties.getBatchSize()) {
+                break;
+            }
+            wordIds = wordRepository.findIdsByCategoryIdAfter(categoryId, wordIds.get(wordIds.size() - 1),
+                new PageRequest(0, properties.getBatchSize()));
+        }
+        if (count > 0) {
+            indices.forEach(elasticsearchTemplate::refresh);
+            log.debug("Copied category {} to {} words", categoryId, count);
+        }
+        return updated;
+    }
+
+    private Map<Long, ?> findEntities(EntityType entityType, Set<Long> ids) {
+        switch (entityType) {
+            case WORD:
+                return wordRepository.findAll(ids).stream().collect(Collectors.toMap(Word::getId, word -> word));
+            case CATEGORY:
+                return categoryRepository.findAll(ids).stream().collect(Collectors.toMap(Category::getId, category -> category));
+            case USER:
+                return userRepository.findAll(ids).stream().collect(Collectors.toMap(User::getId, user -> user));
+            default:
+                return new HashMap<>();
+        }
+    }
+
+    private static Class<?> entityClass(EntityType entityType) {
+        switch (entityType) {
+            case WORD:
+                return Word.class;
+            case CATEGORY:
+                return Category.class;
+            default:
+                return User.class;
+        }
+    }
+
+    /**
+     * The outbox entries of a batch, and the bulk request sending them. The item at index i of the request sends the
+     * changes at index i, and the changes to an entity are sent by several items when it is being reindexed.
+     * The changes to categories are kept with the categories, or null for the deleted ones, to update their words.
+     * The entries failing on their own are kept with their error.
+     */
+    private static final class Batch {
+
+        private final List<SearchOutboxEntry> entries;
+
+        private final BulkRequestBuilder requests;
+
+        private final List<List<SearchOutboxEntry>> changes = new ArrayList<>();
+
+        private final Map<List<SearchOutboxEntry>, Category> categoryChanges = new IdentityHashMap<>();
+
+        private final Map<SearchOutboxEntry, String> failures = new IdentityHashMap<>();
+
+        private Batch(List<SearchOutboxEntry> entries, BulkRequestBuilder requests) {
+            this.entries = entries;
+            this.requests = requests;
+        }
+
+        private void fail(List<SearchOutboxEntry> changes, String error) {
+            changes.forEach(entry -> failures.put(entry, error));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.domain.SearchOutboxEntry;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.SearchTombstone;
+import ru.giylmi.dictionary.repository.SearchOutboxRepository;
+import ru.giylmi.dictionary.repository.SearchTombstoneRepository;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service keeping the search indices in sync with the database through an outbox.
+ *
+ * <p>
+ * Writers record the changed entities in the outbox, in their own transaction, and the outbox is drained into
+ * Elasticsearch in the background, see {@link SearchOutboxDispatcher}. The deletions also leave tombstones, which
+ * the incremental reindex reads.
+ * </p>
+ *
+ * <p>
+ * With the "lucene" profile there is no Elasticsearch to drain the outbox into, so only the tombstones are recorded:
+ * each instance reads the changed words from the database into its local word index, and the deleted ones from the
+ * tombstones.
+ * </p>
+ */
+@Service
+public class SearchOutboxService {
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final SearchTombstoneRepository searchTombstoneRepository;
+
+    private final SearchOutboxDispatcher searchOutboxDispatcher;
+
+    public SearchOutboxService(SearchOutboxRepository searchOutboxRepository,
+                               SearchTombstoneRepository searchTombstoneRepository,
+                               Optional<SearchOutboxDispatcher> searchOutboxDispatcher) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.searchTombstoneRepository = searchTombstoneRepository;
+        this.searchOutboxDispatcher = searchOutboxDispatcher.orElse(null);
+    }
+
+    /**
+     * Record that an entity was created, updated or deleted, within the transaction of the change.
+     *
+     * @param entityType the type of the entity
+     * @param entityId the id of the entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(EntityType entityType, Long entityId) {
+        if (searchOutboxDispatcher == null) {
+            return;
+        }
+        searchOutboxRepository.save(new SearchOutboxEntry(entityType, entityId));
+    }
+
+    /**
+     * Record that entities were created, updated or deleted, within the transaction of the change.
+     *
+     * @param entityType the type of the entities
+     * @param entityIds the ids of the entities
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(EntityType entityType, Iterable<Long> entityIds) {
+        if (searchOutboxDispatcher == null) {
+            return;
+        }
+        List<SearchOutboxEntry> entries = new ArrayList<>();
+        entityIds.forEach(entityId -> entries.add(new SearchOutboxEntry(entityType, entityId)));
+        searchOutboxRepository.save(entries);
+    }
+
+    /**
+     * Record that an entity was deleted, within the transaction of the deletion. Besides the outbox entry, a tombstone
+     * is left for the incremental reindex and the local word index, which cannot otherwise tell the deleted rows.
+     *
+     * @param entityType the type of the entity
+     * @param entityId the id of the entity
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueDeletion(EntityType entityType, Long entityId) {
+        enqueue(entityType, entityId);
+        searchTombstoneRepository.save(new SearchTombstone(entityType, entityId));
+    }
+
+    /**
+     * Send the pending changes to Elasticsearch, batch by batch, until the outbox is drained or Elasticsearch cannot
+     * be reached.
+     *
+     * @return the number of outbox entries dispatched, always 0 with the "lucene" profile
+     */
+    public int dispatch() {
+        return searchOutboxDispatcher == null ? 0 : searchOutboxDispatcher.dispatch();
+    }
+}
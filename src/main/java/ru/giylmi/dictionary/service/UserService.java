@@ -1,11 +1,11 @@
 package ru.giylmi.dictionary.service;
 
 import ru.giylmi.dictionary.domain.Authority;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
 import ru.giylmi.dictionary.domain.User;
 import ru.giylmi.dictionary.repository.AuthorityRepository;
 import ru.giylmi.dictionary.config.Constants;
 import ru.giylmi.dictionary.repository.UserRepository;
-import ru.giylmi.dictionary.repository.search.UserSearchRepository;
 import ru.giylmi.dictionary.security.AuthoritiesConstants;
 import ru.giylmi.dictionary.security.SecurityUtils;
 import ru.giylmi.dictionary.service.util.RandomUtil;
@@ -38,14 +38,14 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchOutboxService searchOutboxService;
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, SearchOutboxService searchOutboxService, AuthorityRepository authorityRepository) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.userSearchRepository = userSearchRepository;
+        this.searchOutboxService = searchOutboxService;
         this.authorityRepository = authorityRepository;
     }
 
@@ -56,7 +56,7 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                userSearchRepository.save(user);
+                searchOutboxService.enqueue(EntityType.USER, user.getId());
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -107,7 +107,7 @@ public class UserService {
         authorities.add(authority);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
-        userSearchRepository.save(newUser);
+        searchOutboxService.enqueue(EntityType.USER, newUser.getId());
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -137,7 +137,7 @@ public class UserService {
         user.setResetDate(Instant.now());
         user.setActivated(true);
         userRepository.save(user);
-        userSearchRepository.save(user);
+        searchOutboxService.enqueue(EntityType.USER, user.getId());
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -158,7 +158,7 @@ public class UserService {
             user.setEmail(email);
             user.setLangKey(langKey);
             user.setImageUrl(imageUrl);
-            userSearchRepository.save(user);
+            searchOutboxService.enqueue(EntityType.USER, user.getId());
             log.debug("Changed Information for User: {}", user);
         });
     }
@@ -194,7 +194,7 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
-            userSearchRepository.delete(user);
+            searchOutboxService.enqueueDeletion(EntityType.USER, user.getId());
             log.debug("Deleted User: {}", user);
         });
     }
@@ -240,7 +240,7 @@ public class UserService {
         for (User user : users) {
             log.debug("Deleting not activated user {}", user.getLogin());
             userRepository.delete(user);
-            userSearchRepository.delete(user);
+            searchOutboxService.enqueueDeletion(EntityType.USER, user.getId());
         }
     }
 
@@ -0,0 +1,133 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.mapper.WordMapper;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Service for exporting the whole dictionary.
+ *
+ * <p>
+ * Words are streamed from the database and written one by one, so that the export never holds more than a
+ * database fetch of words in memory.
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class WordExportService {
+
+    private static final String[] CSV_HEADER = {"id", "rus", "en", "definition", "category_id", "category_rus", "category_en"};
+
+    private final Logger log = LoggerFactory.getLogger(WordExportService.class);
+
+    private final WordRepository wordRepository;
+
+    private final WordMapper wordMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    public WordExportService(WordRepository wordRepository, WordMapper wordMapper, ObjectMapper objectMapper,
+                             EntityManager entityManager) {
+        this.wordRepository = wordRepository;
+        this.wordMapper = wordMapper;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Write all the words, or the words of a category, to the given stream.
+     *
+     * @param format the export format
+     * @param categoryId the id of the category to export, or null to export every word
+     * @param out the stream to write to, which is flushed but not closed
+     * @return the number of exported words
+     * @throws IOException if the stream could not be written
+     */
+    public long export(WordFileFormat format, Long categoryId, OutputStream out) throws IOException {
+        log.debug("Request to export Words in {} for category {}", format, categoryId);
+        try (Stream<Word> words = categoryId == null ? wordRepository.streamAll() : wordRepository.streamAllByCategoryId(categoryId)) {
+            Iterator<Word> iterator = words.iterator();
+            return format == WordFileFormat.CSV ? writeCsv(iterator, out) : writeNdjson(iterator, out);
+        }
+    }
+
+    private long writeNdjson(Iterator<Word> words, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            while (words.hasNext()) {
+                writer.writeValue(generator, toDto(words.next()));
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<Word> words, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, (Object[]) CSV_HEADER);
+        long count = 0;
+        while (words.hasNext()) {
+            WordDTO wordDTO = toDto(words.next());
+            CategoryDTO cat = wordDTO.getCat();
+            writeCsvLine(writer, wordDTO.getId(), wordDTO.getRus(), wordDTO.getEn(), wordDTO.getDefinition(),
+                cat == null ? null : cat.getId(), cat == null ? null : cat.getRus(), cat == null ? null : cat.getEn());
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private WordDTO toDto(Word word) {
+        WordDTO wordDTO = wordMapper.toDto(word);
+        // The stream does not release the words it has read, so they are detached to keep memory bounded
+        entityManager.detach(word);
+        return wordDTO;
+    }
+
+    private static void writeCsvLine(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,40 @@
+package ru.giylmi.dictionary.service;
+
+/**
+ * The file formats words are exported to and imported from.
+ */
+public enum WordFileFormat {
+
+    NDJSON("ndjson", "application/x-ndjson;charset=UTF-8"),
+    CSV("csv", "text/csv;charset=UTF-8");
+
+    private final String code;
+
+    private final String contentType;
+
+    WordFileFormat(String code, String contentType) {
+        this.code = code;
+        this.contentType = contentType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @param code the format code, case insensitive
+     * @return the format, or null if the code is unknown
+     */
+    public static WordFileFormat fromCode(String code) {
+        for (WordFileFormat format : values()) {
+            if (format.code.equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,334 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.dto.WordImportErrorDTO;
+import ru.giylmi.dictionary.service.dto.WordImportReportDTO;
+import ru.giylmi.dictionary.service.mapper.WordMapper;
+import ru.giylmi.dictionary.service.util.CsvReader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static ru.giylmi.dictionary.service.util.TransactionUtil.afterCommit;
+
+/**
+ * Service for importing words in bulk.
+ *
+ * <p>
+ * Rows are read from the stream as they arrive and written in batches: each batch is inserted in its own
+ * transaction, with JDBC batching, along with the search outbox entries that index it in Elasticsearch. Rows that
+ * cannot be imported are reported and do not stop the import: when the database rejects a batch, its rows are
+ * written again one by one, so that only the rejected rows are reported.
+ * </p>
+ */
+@Service
+public class WordImportService {
+
+    public static final int MAX_BATCH_SIZE = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(WordImportService.class);
+
+    private final WordRepository wordRepository;
+
+    private final WordMapper wordMapper;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final CategoryRepository categoryRepository;
+
+    private final WordIndexService wordIndexService;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.WordImport properties;
+
+    public WordImportService(WordRepository wordRepository, WordMapper wordMapper,
+                             SearchOutboxService searchOutboxService, CategoryRepository categoryRepository,
+                             WordIndexService wordIndexService, ObjectMapper objectMapper, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties) {
+        this.wordRepository = wordRepository;
+        this.wordMapper = wordMapper;
+        this.searchOutboxService = searchOutboxService;
+        this.categoryRepository = categoryRepository;
+        this.wordIndexService = wordIndexService;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getWordImport();
+    }
+
+    /**
+     * Import the words read from the given stream. Ids in the input are ignored, every row creates a new word.
+     *
+     * <p>
+     * NDJSON rows are words in the format of the REST API, and are numbered by line. CSV input starts with a header
+     * naming its columns among "rus", "en", "definition" and "category_id", other columns being ignored, and its
+     * rows are numbered from 1 after the header.
+     * </p>
+     *
+     * @param format the input format
+     * @param in the stream to read, which is not closed
+     * @param batchSize the number of words written at once, or null for the configured size
+     * @return the import report
+     * @throws IOException if the stream could not be read
+     */
+    public WordImportReportDTO importWords(WordFileFormat format, InputStream in, Integer batchSize) throws IOException {
+        int size = Math.max(1, Math.min(batchSize == null ? properties.getBatchSize() : batchSize, MAX_BATCH_SIZE));
+        log.debug("Request to import Words from {} in batches of {}", format, size);
+        long start = System.nanoTime();
+        Batch batch = new Batch(size, new WordImportReportDTO());
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (format == WordFileFormat.CSV) {
+            readCsv(reader, batch);
+        } else {
+            readNdjson(reader, batch);
+        }
+        batch.flush();
+
+        WordImportReportDTO report = batch.report;
+        report.setDurationMillis((System.nanoTime() - start) / 1_000_000);
+        report.setWordsPerSecond(report.getImported() * 1000.0 / Math.max(1, report.getDurationMillis()));
+        log.info("Imported {} Words in {} ms ({} words/s), {} rows failed", report.getImported(),
+            report.getDurationMillis(), Math.round(report.getWordsPerSecond()), report.getFailed());
+        return report;
+    }
+
+    private void readNdjson(BufferedReader reader, Batch batch) throws IOException {
+        long row = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            try {
+                batch.add(row, objectMapper.readValue(line, WordDTO.class));
+            } catch (JsonProcessingException e) {
+                batch.fail(row, "Malformed word: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, Batch batch) throws IOException {
+        CsvReader csvReader = new CsvReader(reader);
+        List<String> header = read(csvReader, 0, batch);
+        if (header == null) {
+            return;
+        }
+        int rus = header.indexOf("rus");
+        int en = header.indexOf("en");
+        int definition = header.indexOf("definition");
+        int categoryId = header.indexOf("category_id");
+        if (rus < 0 && en < 0) {
+            batch.fail(0, "The header has neither a rus nor an en column");
+            return;
+        }
+
+        long row = 0;
+        List<String> fields;
+        while ((fields = read(csvReader, row + 1, batch)) != null) {
+            row++;
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            WordDTO wordDTO = new WordDTO();
+            wordDTO.setRus(field(fields, rus));
+            wordDTO.setEn(field(fields, en));
+            wordDTO.setDefinition(field(fields, definition));
+            String category = field(fields, categoryId);
+            if (category != null) {
+                try {
+                    CategoryDTO categoryDTO = new CategoryDTO();
+                    categoryDTO.setId(Long.valueOf(category));
+                    wordDTO.setCat(categoryDTO);
+                } catch (NumberFormatException e) {
+                    batch.fail(row, "Malformed category id " + category);
+                    continue;
+                }
+            }
+            batch.add(row, wordDTO);
+        }
+    }
+
+    /**
+     * A malformed record is reported as a failed row, and ends the input, as it runs until the end of the input.
+     */
+    private static List<String> read(CsvReader csvReader, long row, Batch batch) throws IOException {
+        try {
+            return csvReader.read();
+        } catch (CsvReader.MalformedCsvException e) {
+            batch.fail(row, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < 0 || index >= fields.size() ? null : StringUtils.trimToNull(fields.get(index));
+    }
+
+    /**
+     * The rows waiting to be written, and the report they are accounted in.
+     */
+    private final class Batch {
+
+        private final int size;
+
+        private final WordImportReportDTO report;
+
+        private final List<Long> rows;
+
+        private final List<WordDTO> words;
+
+        private Batch(int size, WordImportReportDTO report) {
+            this.size = size;
+            this.report = report;
+            this.rows = new ArrayList<>(size);
+            this.words = new ArrayList<>(size);
+        }
+
+        private void add(long row, WordDTO wordDTO) {
+            if (StringUtils.isBlank(wordDTO.getRus()) && StringUtils.isBlank(wordDTO.getEn())) {
+                fail(row, "A word needs a rus or an en term");
+                return;
+            }
+            rows.add(row);
+            words.add(wordDTO);
+            if (words.size() >= size) {
+                flush();
+            }
+        }
+
+        private void fail(long row, String message) {
+            report.setFailed(report.getFailed() + 1);
+            if (report.getErrors().size() < properties.getMaxReportedErrors()) {
+                report.getErrors().add(new WordImportErrorDTO(row, message));
+            }
+        }
+
+        private void flush() {
+            if (words.isEmpty()) {
+                return;
+            }
+            report.setBatches(report.getBatches() + 1);
+            Map<Long, Category> categories = findCategories();
+            List<WordDTO> validWords = new ArrayList<>(words.size());
+            List<Long> validRows = new ArrayList<>(words.size());
+            for (int i = 0; i < words.size(); i++) {
+                WordDTO wordDTO = words.get(i);
+                Long categoryId = wordDTO.getCat() == null ? null : wordDTO.getCat().getId();
+                if (categoryId != null && !categories.containsKey(categoryId)) {
+                    fail(rows.get(i), "Unknown category " + categoryId);
+                    continue;
+                }
+                validWords.add(wordDTO);
+                validRows.add(rows.get(i));
+            }
+            rows.clear();
+            words.clear();
+            if (validWords.isEmpty()) {
+                return;
+            }
+
+            try {
+                save(toEntities(validWords, categories));
+            } catch (DataAccessException | TransactionException | PersistenceException e) {
+                log.warn("Could not import a batch of {} Words, importing them one by one: {}", validWords.size(),
+                    NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                for (int i = 0; i < validWords.size(); i++) {
+                    try {
+                        save(toEntities(Collections.singletonList(validWords.get(i)), categories));
+                    } catch (DataAccessException | TransactionException | PersistenceException rowException) {
+                        fail(validRows.get(i), "Could not save the word: "
+                            + NestedExceptionUtils.getMostSpecificCause(rowException).getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * The entities are built anew for each attempt, as a failed one leaves ids on them.
+         */
+        private List<Word> toEntities(List<WordDTO> wordDTOs, Map<Long, Category> categories) {
+            List<Word> entities = new ArrayList<>(wordDTOs.size());
+            for (WordDTO wordDTO : wordDTOs) {
+                Word word = wordMapper.toEntity(wordDTO);
+                word.setId(null);
+                word.setCategory(wordDTO.getCat() == null || wordDTO.getCat().getId() == null ? null
+                    : categories.get(wordDTO.getCat().getId()));
+                entities.add(word);
+            }
+            return entities;
+        }
+
+        private void save(List<Word> entities) {
+            try {
+                transactionTemplate.execute(status -> {
+                    wordRepository.save(entities);
+                    searchOutboxService.enqueue(EntityType.WORD, entities.stream().map(Word::getId).collect(Collectors.toList()));
+                    // Flushing sends the inserts as JDBC batches, and clearing keeps the persistence context small
+                    entityManager.flush();
+                    entityManager.clear();
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Within a larger transaction, the rejected entities must not be flushed again by the next attempt
+                entityManager.clear();
+                throw e;
+            }
+            // Within a larger transaction, the words are only indexed once it commits
+            List<WordDTO> imported = wordMapper.toDto(entities);
+            afterCommit(() -> imported.forEach(wordIndexService::index));
+            report.setImported(report.getImported() + entities.size());
+        }
+
+        private Map<Long, Category> findCategories() {
+            Set<Long> ids = new HashSet<>();
+            for (WordDTO wordDTO : words) {
+                if (wordDTO.getCat() != null && wordDTO.getCat().getId() != null) {
+                    ids.add(wordDTO.getCat().getId());
+                }
+            }
+            Map<Long, Category> categories = new HashMap<>();
+            if (!ids.isEmpty()) {
+                categoryRepository.findAll(ids).forEach(category -> categories.put(category.getId(), category));
+            }
+            return categories;
+        }
+    }
+}
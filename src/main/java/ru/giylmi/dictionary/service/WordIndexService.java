@@ -0,0 +1,570 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.AnnotationDTO;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.TranslationDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.dto.WordSuggestionDTO;
+import ru.giylmi.dictionary.service.dto.WordSuggestionsDTO;
+import ru.giylmi.dictionary.service.index.IndexedWord;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.index.LanguageIndex;
+import ru.giylmi.dictionary.service.index.SymmetricDeleteIndex;
+import ru.giylmi.dictionary.service.index.TermAutomaton;
+import ru.giylmi.dictionary.service.index.TermNormalizer;
+import ru.giylmi.dictionary.service.index.TermStemmer;
+import ru.giylmi.dictionary.service.index.TextAnnotator;
+import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Service keeping an in-process copy of the dictionary for lookups that must not hit the database or Elasticsearch.
+ *
+ * <p>
+ * The index is loaded once the application is ready, and kept current by the REST resources once each write has
+ * committed, so that a rolled back write never shows in it.
+ * </p>
+ */
+@Service
+public class WordIndexService {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final int DID_YOU_MEAN_SIZE = 10;
+
+    private static final int ANNOTATE_CHUNK_SIZE = 8192;
+
+    /**
+     * Callback receiving the terms found in an annotated text, chunk by chunk.
+     */
+    @FunctionalInterface
+    public interface AnnotationWriter {
+
+        /**
+         * @param annotations the terms found in the last chunk, in the order of their end in the text
+         * @throws IOException if the terms could not be written
+         */
+        void write(List<AnnotationDTO> annotations) throws IOException;
+    }
+
+    private final Logger log = LoggerFactory.getLogger(WordIndexService.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final WordRepository wordRepository;
+
+    private final CategoryRepository categoryRepository;
+
+    private final CategoryMapper categoryMapper;
+
+    private LongObjectHashMap<IndexedWord> words = new LongObjectHashMap<>();
+
+    private LongObjectHashMap<CategoryDTO> categories = new LongObjectHashMap<>();
+
+    private LanguageIndex rusIndex = new LanguageIndex(Language.RU, 16);
+
+    private LanguageIndex enIndex = new LanguageIndex(Language.EN, 16);
+
+    private TermAutomaton automaton = new TermAutomaton();
+
+    /**
+     * A linked copy of the automaton, left unchanged so that the annotations can scan it.
+     */
+    private TermAutomaton linkedAutomaton = new TermAutomaton();
+
+    private final AtomicBoolean linking = new AtomicBoolean();
+
+    /**
+     * The writes made while a reload reads the database, replayed on the loaded index once it is swapped in, or null
+     * when no reload is running.
+     */
+    private List<Runnable> pendingWrites;
+
+    public WordIndexService(WordRepository wordRepository, CategoryRepository categoryRepository,
+                            CategoryMapper categoryMapper) {
+        this.wordRepository = wordRepository;
+        this.categoryRepository = categoryRepository;
+        this.categoryMapper = categoryMapper;
+    }
+
+    /**
+     * Rebuild the whole index from the database, reading words page by page in id order. The writes committed while
+     * the database is read are applied to the current index, and replayed on the loaded one once it is swapped in,
+     * so that none of them is lost whether the read saw it or not.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Timed
+    public synchronized void reload() {
+        log.debug("Loading the in-memory word index");
+        lock.writeLock().lock();
+        try {
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            load();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void load() {
+        LongObjectHashMap<CategoryDTO> loadedCategories = new LongObjectHashMap<>();
+        categoryMapper.toDto(categoryRepository.findAll())
+            .forEach(categoryDTO -> loadedCategories.put(categoryDTO.getId(), categoryDTO));
+
+        int expectedSize = (int) Math.min(Integer.MAX_VALUE, wordRepository.count());
+        LongObjectHashMap<IndexedWord> loadedWords = new LongObjectHashMap<>(expectedSize);
+        LanguageIndex loadedRusIndex = new LanguageIndex(Language.RU, expectedSize);
+        LanguageIndex loadedEnIndex = new LanguageIndex(Language.EN, expectedSize);
+        TermAutomaton loadedAutomaton = new TermAutomaton();
+        List<WordDTO> page = wordRepository.findAllAsDtoAfter(Long.MIN_VALUE, new PageRequest(0, LOAD_PAGE_SIZE));
+        while (!page.isEmpty()) {
+            for (WordDTO wordDTO : page) {
+                IndexedWord word = IndexedWord.of(wordDTO);
+                loadedWords.put(word.getId(), word);
+                loadedRusIndex.add(TermNormalizer.normalize(word.getRus()), word.getId());
+                loadedEnIndex.add(TermNormalizer.normalize(word.getEn()), word.getId());
+                loadedAutomaton.add(TermNormalizer.normalize(word.getRus()));
+                loadedAutomaton.add(TermNormalizer.normalize(word.getEn()));
+            }
+            if (page.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+            page = wordRepository.findAllAsDtoAfter(page.get(page.size() - 1).getId(), new PageRequest(0, LOAD_PAGE_SIZE));
+        }
+        TermAutomaton loadedLinkedAutomaton = loadedAutomaton.copy();
+        loadedLinkedAutomaton.link();
+
+        lock.writeLock().lock();
+        try {
+            this.words = loadedWords;
+            this.categories = loadedCategories;
+            this.rusIndex = loadedRusIndex;
+            this.enIndex = loadedEnIndex;
+            this.automaton = loadedAutomaton;
+            this.linkedAutomaton = loadedLinkedAutomaton;
+            // The replayed writes change the automaton, which is relinked by the next annotation
+            pendingWrites.forEach(Runnable::run);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} words into the in-memory word index, and replayed {} writes made meanwhile",
+            loadedWords.size(), pendingWrites.size());
+    }
+
+    /**
+     * Add or replace a word in the index.
+     *
+     * @param wordDTO the saved word
+     */
+    public void index(WordDTO wordDTO) {
+        IndexedWord word = IndexedWord.of(wordDTO);
+        write(() -> {
+            unindex(words.get(word.getId()));
+            words.put(word.getId(), word);
+            rusIndex.add(TermNormalizer.normalize(word.getRus()), word.getId());
+            enIndex.add(TermNormalizer.normalize(word.getEn()), word.getId());
+            automaton.add(TermNormalizer.normalize(word.getRus()));
+            automaton.add(TermNormalizer.normalize(word.getEn()));
+            if (word.hasCategory() && !categories.containsKey(word.getCategoryId())) {
+                categories.put(word.getCategoryId(), wordDTO.getCat());
+            }
+        });
+    }
+
+    /**
+     * Remove a word from the index.
+     *
+     * @param id the id of the deleted word
+     */
+    public void remove(Long id) {
+        write(() -> unindex(words.remove(id)));
+    }
+
+    /**
+     * Add or replace a category, so that the words referencing it are returned with its current names.
+     *
+     * @param categoryDTO the saved category
+     */
+    public void indexCategory(CategoryDTO categoryDTO) {
+        write(() -> categories.put(categoryDTO.getId(), categoryDTO));
+    }
+
+    /**
+     * Remove a category from the index.
+     *
+     * @param id the id of the deleted category
+     */
+    public void removeCategory(Long id) {
+        write(() -> categories.remove(id));
+    }
+
+    /**
+     * Apply a write to the index, and keep it for replay if a reload is running.
+     */
+    private void write(Runnable write) {
+        lock.writeLock().lock();
+        try {
+            write.run();
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the words whose term in the given language exactly matches the given one, once normalized.
+     * When nothing matches, the words sharing the stem of the term are returned instead, so that an inflected form
+     * finds its headword. When that fails too, the closest terms within the given edit distance are returned
+     * as "did you mean" suggestions.
+     *
+     * @param from the language of the term
+     * @param term the term to translate
+     * @param maxDistance the maximum edit distance of the suggestions, 0 to disable them
+     * @return the translation of the term
+     */
+    public TranslationDTO translate(Language from, String term, int maxDistance) {
+        TranslationDTO result = new TranslationDTO(term);
+        String key = TermNormalizer.normalize(term);
+        if (key == null) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            LanguageIndex languageIndex = languageIndex(from);
+            result.setWords(lookup(languageIndex, from, key));
+            if (result.getWords().isEmpty() && maxDistance > 0) {
+                collectDidYouMean(languageIndex, from, key, maxDistance, result.getDidYouMean());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Translate many terms under a single read of the index. Each term is matched like a single translation, without
+     * the "did you mean" suggestions, and the terms repeated once normalized are only looked up once.
+     *
+     * @param from the language of the terms
+     * @param terms the terms to translate
+     * @return the translations, in the order of the terms
+     */
+    public List<TranslationDTO> translateAll(Language from, List<String> terms) {
+        List<TranslationDTO> result = new ArrayList<>(terms.size());
+        Map<String, List<WordDTO>> found = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            LanguageIndex languageIndex = languageIndex(from);
+            for (String term : terms) {
+                TranslationDTO translation = new TranslationDTO(term);
+                String key = TermNormalizer.normalize(term);
+                if (key != null) {
+                    translation.setWords(found.computeIfAbsent(key, normalized -> lookup(languageIndex, from, normalized)));
+                }
+                result.add(translation);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Find every term of the dictionary, in either language, occurring in a text read chunk by chunk. Each chunk is
+     * scanned under a short read of the index, so that a long text does not hold back the writes, and its terms are
+     * handed to the writer before the next chunk is read. The whole text is matched against the terms indexed when
+     * its scan started.
+     *
+     * @param text the text, which is read until its end but not closed
+     * @param html true if the text is HTML, whose markup is skipped
+     * @param writer the callback receiving the terms found
+     * @return the number of terms found
+     * @throws IOException if the text could not be read or the terms could not be written
+     */
+    public long annotate(Reader text, boolean html, AnnotationWriter writer) throws IOException {
+        List<AnnotationDTO> annotations = new ArrayList<>();
+        TextAnnotator.Listener listener = (start, end, key) -> {
+            for (Language language : Language.values()) {
+                List<WordDTO> found = new ArrayList<>();
+                for (long id : languageIndex(language).getExact().get(key)) {
+                    found.add(toDto(words.get(id)));
+                }
+                if (!found.isEmpty()) {
+                    annotations.add(new AnnotationDTO(start, end, key, language.getCode(), found));
+                }
+            }
+        };
+        char[] buffer = new char[ANNOTATE_CHUNK_SIZE];
+        TextAnnotator annotator = new TextAnnotator(linkAutomaton(), html, listener);
+        long count = 0;
+        int read;
+        do {
+            read = text.read(buffer);
+            lock.readLock().lock();
+            try {
+                if (read > 0) {
+                    annotator.feed(buffer, read);
+                } else if (read < 0) {
+                    annotator.finish();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (!annotations.isEmpty()) {
+                writer.write(annotations);
+                count += annotations.size();
+                annotations.clear();
+            }
+        } while (read >= 0);
+        return count;
+    }
+
+    /**
+     * Complete a prefix against the terms of both languages.
+     *
+     * @param prefix the typed prefix
+     * @param size the maximum number of suggestions per language
+     * @return the suggestions, in lexicographic order of the normalized terms
+     */
+    public WordSuggestionsDTO suggest(String prefix, int size) {
+        WordSuggestionsDTO result = new WordSuggestionsDTO();
+        String key = TermNormalizer.normalize(prefix);
+        if (key == null || size <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            collectSuggestions(Language.RU, key, size, result.getRus());
+            collectSuggestions(Language.EN, key, size, result.getEn());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Find the words whose term matches the given one, as a local stand-in for the Elasticsearch search.
+     * The exact mode matches the whole normalized term, the prefix mode the terms starting with it, and the match mode
+     * the terms equal to it or sharing its stem.
+     *
+     * @param term the searched term
+     * @param language the language of the term, or null to search both languages
+     * @param categoryId the id of the category of the words, or null for any category
+     * @param mode how the term is matched
+     * @param limit the maximum number of words
+     * @return the words found, exact matches first
+     */
+    public List<WordDTO> search(String term, Language language, Long categoryId, MatchMode mode, int limit) {
+        List<WordDTO> result = new ArrayList<>();
+        String key = TermNormalizer.normalize(term);
+        if (key == null || limit <= 0) {
+            return result;
+        }
+        Language[] languages = language == null ? Language.values() : new Language[]{language};
+        LongHashSet found = new LongHashSet();
+        LongPredicate collect = id -> {
+            IndexedWord word = words.get(id);
+            if (word != null && (categoryId == null || word.getCategoryId() == categoryId) && found.add(id)) {
+                result.add(toDto(word));
+            }
+            return result.size() < limit;
+        };
+        lock.readLock().lock();
+        try {
+            for (Language searched : languages) {
+                LanguageIndex languageIndex = languageIndex(searched);
+                if (mode == MatchMode.PREFIX) {
+                    languageIndex.getTrie().visit(key, (prefixed, ids) -> collectAll(ids, collect));
+                } else if (collectAll(languageIndex.getExact().get(key), collect) && mode == MatchMode.MATCH) {
+                    collectAll(languageIndex.getStems().get(TermStemmer.stemKey(searched, key)), collect);
+                }
+                if (result.size() >= limit) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private List<WordDTO> lookup(LanguageIndex languageIndex, Language from, String key) {
+        long[] ids = languageIndex.getExact().get(key);
+        if (ids.length == 0) {
+            ids = languageIndex.getStems().get(TermStemmer.stemKey(from, key));
+        }
+        List<WordDTO> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(toDto(words.get(id)));
+        }
+        return result;
+    }
+
+    /**
+     * @param id the id of a category
+     * @return the category, or null if it is not indexed
+     */
+    public CategoryDTO getCategory(long id) {
+        lock.readLock().lock();
+        try {
+            return categories.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of words currently indexed
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return words.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean collectAll(long[] ids, LongPredicate collect) {
+        for (long id : ids) {
+            if (!collect.test(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Relink the automaton once after the writes made since the last annotation. The automaton is copied under a read
+     * of the index, the copy is linked without holding the lock, and only its swap takes the write lock, so that a
+     * large relink holds back neither the searches nor the writes. While another annotation relinks, the previous
+     * copy is scanned, and the writes made meanwhile are picked up by the next annotation.
+     *
+     * @return the linked copy of the automaton to scan
+     */
+    private TermAutomaton linkAutomaton() {
+        if (!linking.compareAndSet(false, true)) {
+            lock.readLock().lock();
+            try {
+                return linkedAutomaton;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        try {
+            TermAutomaton source;
+            TermAutomaton copy;
+            lock.readLock().lock();
+            try {
+                if (linkedAutomaton.getModCount() == automaton.getModCount()) {
+                    return linkedAutomaton;
+                }
+                source = automaton;
+                copy = automaton.copy();
+            } finally {
+                lock.readLock().unlock();
+            }
+            copy.link();
+            lock.writeLock().lock();
+            try {
+                // A reload swaps its own linked copy
+                if (automaton == source) {
+                    linkedAutomaton = copy;
+                }
+                return linkedAutomaton;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            linking.set(false);
+        }
+    }
+
+    private LanguageIndex languageIndex(Language language) {
+        return language == Language.RU ? rusIndex : enIndex;
+    }
+
+    private void collectSuggestions(Language language, String prefix, int size, List<WordSuggestionDTO> suggestions) {
+        languageIndex(language).getTrie().visit(prefix, (key, ids) -> {
+            for (long id : ids) {
+                suggestions.add(toSuggestion(words.get(id), language));
+                if (suggestions.size() >= size) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private void collectDidYouMean(LanguageIndex languageIndex, Language language, String key, int maxDistance,
+                                   List<WordSuggestionDTO> suggestions) {
+        for (SymmetricDeleteIndex.Match match : languageIndex.getFuzzy().lookup(key, maxDistance, DID_YOU_MEAN_SIZE)) {
+            for (long id : languageIndex.getExact().get(match.getTerm())) {
+                suggestions.add(toSuggestion(words.get(id), language));
+                if (suggestions.size() >= DID_YOU_MEAN_SIZE) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void unindex(IndexedWord word) {
+        if (word == null) {
+            return;
+        }
+        String rus = TermNormalizer.normalize(word.getRus());
+        String en = TermNormalizer.normalize(word.getEn());
+        rusIndex.remove(rus, word.getId());
+        enIndex.remove(en, word.getId());
+        removeUnusedTerm(rus);
+        removeUnusedTerm(en);
+    }
+
+    private void removeUnusedTerm(String key) {
+        if (key != null && rusIndex.getExact().get(key).length == 0 && enIndex.getExact().get(key).length == 0) {
+            automaton.remove(key);
+        }
+    }
+
+    private WordDTO toDto(IndexedWord word) {
+        return word.toDto(word.hasCategory() ? categories.get(word.getCategoryId()) : null);
+    }
+
+    private WordSuggestionDTO toSuggestion(IndexedWord word, Language language) {
+        return new WordSuggestionDTO(word.getId(), word.getTerm(language), word.getTerm(language.other()),
+            word.hasCategory() ? word.getCategoryId() : null);
+    }
+}
@@ -0,0 +1,211 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.dto.WordSearchPage;
+import ru.giylmi.dictionary.service.dto.WordSearchSlice;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Service searching the words in the search backend.
+ *
+ * <p>
+ * The searches are checked against the limits of the "application.search" properties before reaching the backend,
+ * so that no client can send a search whose cost grows with the size of its term or the depth of its page.
+ * </p>
+ *
+ * <p>
+ * While the backend is unavailable, the searches are served by the in-memory word index instead, in degraded mode.
+ * A query string has no such fallback.
+ * </p>
+ *
+ * <p>
+ * Deep pages are read from a cursor instead of a page number, so that each page costs the same whatever its depth.
+ * As each cursor holds resources in the backend until it expires, the cursors must be reserved to administrators.
+ * The local Lucene word index of the "lucene" profile has no cursors, and counts no category for the faceted searches.
+ * </p>
+ */
+@Service
+public class WordSearchService {
+
+    private final Logger log = LoggerFactory.getLogger(WordSearchService.class);
+
+    private final SearchBackend searchBackend;
+
+    private final WordIndexService wordIndexService;
+
+    private final ApplicationProperties.Search properties;
+
+    public WordSearchService(SearchBackend searchBackend, WordIndexService wordIndexService,
+                             ApplicationProperties applicationProperties) {
+        this.searchBackend = searchBackend;
+        this.wordIndexService = wordIndexService;
+        this.properties = applicationProperties.getSearch();
+    }
+
+    /**
+     * Search the words whose term matches the given one.
+     *
+     * @param term the searched term
+     * @param language the language of the term, or null to search both languages
+     * @param categoryId the id of the category of the words, or null for any category
+     * @param mode how the term is matched
+     * @param pageable the pagination information
+     * @return the page of words, best matches first
+     * @throws IllegalArgumentException if the term or the page exceed the search limits
+     */
+    public WordSearchPage search(String term, Language language, Long categoryId, MatchMode mode, Pageable pageable) {
+        log.debug("Request to search Words for {} term {} in category {} with {} match", language, term, categoryId, mode);
+        checkTerm(term);
+        checkPage(pageable);
+        return orFallback(searchBackend.searchWords(term, language, categoryId, mode, pageable), pageable, false,
+            () -> fallback(limit -> wordIndexService.search(term, language, categoryId, mode, limit), pageable));
+    }
+
+    /**
+     * Search the words matching a plain text in any of their fields.
+     *
+     * @param text the searched text
+     * @param pageable the pagination information
+     * @param facets whether to count the hits in each category
+     * @return the page of words, best matches first
+     * @throws IllegalArgumentException if the text or the page exceed the search limits
+     */
+    public WordSearchPage searchText(String text, Pageable pageable, boolean facets) {
+        log.debug("Request to search Words for text {}", text);
+        checkTerm(text);
+        checkPage(pageable);
+        return orFallback(searchBackend.searchWordsByText(text, pageable, facets), pageable, facets, () -> fallback(limit -> {
+            String terms = text.trim().replaceAll("\\*+$", "");
+            List<WordDTO> words = wordIndexService.search(terms, null, null, MatchMode.MATCH, limit);
+            Set<Long> ids = new HashSet<>();
+            words.forEach(wordDTO -> ids.add(wordDTO.getId()));
+            for (WordDTO wordDTO : wordIndexService.search(terms, null, null, MatchMode.PREFIX, limit)) {
+                if (words.size() >= limit) {
+                    break;
+                }
+                if (ids.add(wordDTO.getId())) {
+                    words.add(wordDTO);
+                }
+            }
+            return words;
+        }, pageable));
+    }
+
+    /**
+     * Search the words matching a raw query string. Its cost is not bounded, so it must be reserved to administrators.
+     *
+     * @param query the query, in the query string syntax
+     * @param pageable the pagination information
+     * @param facets whether to count the hits in each category
+     * @return the page of words, or null if the backend is unavailable, as a query string has no fallback
+     * @throws IllegalArgumentException if the page exceeds the search limits, or if the query is rejected as invalid
+     */
+    public WordSearchPage searchQueryString(String query, Pageable pageable, boolean facets) {
+        log.debug("Request to search Words for query string {}", query);
+        checkPage(pageable);
+        return orFallback(searchBackend.searchWordsByQueryString(query, pageable, facets), pageable, facets, () -> null);
+    }
+
+    /**
+     * Search the words matching a plain text in any of their fields, reading the page from a cursor. Cursors hold
+     * resources in the backend, so they must be reserved to administrators.
+     *
+     * @param text the searched text, ignored after the first page as the cursor holds the search
+     * @param after the cursor of the previous page, empty for the first page
+     * @param size the page size, the size of the first page being kept by the following ones
+     * @return the words of the page, best matches first, or null if the backend is unavailable
+     * @throws IllegalArgumentException if the text or the page size exceed the search limits, if the cursor is
+     * malformed or has expired, or if the backend has no cursors
+     * @throws IllegalStateException if the first page is requested while too many cursors are open
+     */
+    public WordSearchSlice searchTextAfter(String text, String after, int size) {
+        log.debug("Request to search Words for text {} after {}", text, after);
+        checkTerm(text);
+        checkSize(size);
+        return searchBackend.searchWordsByTextAfter(text, after, size);
+    }
+
+    /**
+     * Search the words matching a raw query string, reading the page from a cursor. Its cost is not bounded, so it
+     * must be reserved to administrators.
+     *
+     * @param query the query, in the query string syntax, ignored after the first page as the cursor holds the search
+     * @param after the cursor of the previous page, empty for the first page
+     * @param size the page size, the size of the first page being kept by the following ones
+     * @return the words of the page, or null if the backend is unavailable
+     * @throws IllegalArgumentException if the page size exceeds the search limits, if the cursor is malformed
+     * or has expired, or if the backend has no cursors
+     * @throws IllegalStateException if the first page is requested while too many cursors are open
+     */
+    public WordSearchSlice searchQueryStringAfter(String query, String after, int size) {
+        log.debug("Request to search Words for query string {} after {}", query, after);
+        checkSize(size);
+        return searchBackend.searchWordsByQueryStringAfter(query, after, size);
+    }
+
+    private WordSearchPage orFallback(WordSearchPage page, Pageable pageable, boolean facets,
+                                      Supplier<WordSearchPage> fallback) {
+        if (page != null) {
+            return page;
+        }
+        page = fallback.get();
+        if (page == null || !facets) {
+            return page;
+        }
+        // The in-memory word index only finds the words up to the page, too few to count the hits of the search
+        return new WordSearchPage(page.getContent(), pageable, page.getTotalElements(), true, Collections.emptyList());
+    }
+
+    /**
+     * Serve a page from the in-memory word index. The words up to the end of the page are looked up, plus one to know
+     * whether there is a next page, so the total is only exact on the last page.
+     */
+    private WordSearchPage fallback(IntFunction<List<WordDTO>> search, Pageable pageable) {
+        int offset = pageable.getOffset();
+        List<WordDTO> words = search.apply(offset + pageable.getPageSize() + 1);
+        List<WordDTO> content = new ArrayList<>(words.subList(Math.min(offset, words.size()),
+            Math.min(offset + pageable.getPageSize(), words.size())));
+        return new WordSearchPage(content, pageable, words.size(), true);
+    }
+
+    private void checkTerm(String term) {
+        String trimmed = term == null ? "" : term.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("The searched term is empty");
+        }
+        if (trimmed.length() > properties.getMaxTermLength()) {
+            throw new IllegalArgumentException("The searched term is longer than " + properties.getMaxTermLength() + " characters");
+        }
+        if (trimmed.split("\\s+").length > properties.getMaxTerms()) {
+            throw new IllegalArgumentException("The searched term has more than " + properties.getMaxTerms() + " words");
+        }
+    }
+
+    private void checkPage(Pageable pageable) {
+        checkSize(pageable.getPageSize());
+        if ((long) pageable.getPageNumber() * pageable.getPageSize() + pageable.getPageSize() > properties.getMaxResultWindow()) {
+            throw new IllegalArgumentException("The page is deeper than the first " + properties.getMaxResultWindow() + " hits");
+        }
+    }
+
+    private void checkSize(int size) {
+        if (size > properties.getMaxPageSize()) {
+            throw new IllegalArgumentException("The page size is larger than " + properties.getMaxPageSize());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for a dictionary term found in an annotated text.
+ */
+public class AnnotationDTO implements Serializable {
+
+    private long start;
+
+    private long end;
+
+    private String term;
+
+    private String language;
+
+    private List<WordDTO> words = new ArrayList<>();
+
+    public AnnotationDTO() {
+    }
+
+    public AnnotationDTO(long start, long end, String term, String language, List<WordDTO> words) {
+        this.start = start;
+        this.end = end;
+        this.term = term;
+        this.language = language;
+        this.words = words;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public List<WordDTO> getWords() {
+        return words;
+    }
+
+    public void setWords(List<WordDTO> words) {
+        this.words = words;
+    }
+
+    @Override
+    public String toString() {
+        return "AnnotationDTO{" +
+            "start=" + getStart() +
+            ", end=" + getEnd() +
+            ", term='" + getTerm() + "'" +
+            ", language='" + getLanguage() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,46 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+
+/**
+ * A DTO counting the hits of a Word search in a category.
+ */
+public class CategoryFacetDTO implements Serializable {
+
+    private CategoryDTO category;
+
+    private long count;
+
+    public CategoryFacetDTO() {
+    }
+
+    public CategoryFacetDTO(CategoryDTO category, long count) {
+        this.category = category;
+        this.count = count;
+    }
+
+    public CategoryDTO getCategory() {
+        return category;
+    }
+
+    public void setCategory(CategoryDTO category) {
+        this.category = category;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryFacetDTO{" +
+            "category=" + getCategory() +
+            ", count=" + getCount() +
+            "}";
+    }
+}
@@ -0,0 +1,52 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+
+/**
+ * A DTO grouping the hits of a global search by kind of entity.
+ */
+public class GlobalSearchResultDTO implements Serializable {
+
+    private SearchGroupDTO<WordDTO> words;
+
+    private SearchGroupDTO<CategoryDTO> categories;
+
+    private SearchGroupDTO<UserDTO> users;
+
+    public SearchGroupDTO<WordDTO> getWords() {
+        return words;
+    }
+
+    public void setWords(SearchGroupDTO<WordDTO> words) {
+        this.words = words;
+    }
+
+    public SearchGroupDTO<CategoryDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(SearchGroupDTO<CategoryDTO> categories) {
+        this.categories = categories;
+    }
+
+    /**
+     * @return the users found, or null if the users were not searched
+     */
+    public SearchGroupDTO<UserDTO> getUsers() {
+        return users;
+    }
+
+    public void setUsers(SearchGroupDTO<UserDTO> users) {
+        this.users = users;
+    }
+
+    @Override
+    public String toString() {
+        return "GlobalSearchResultDTO{" +
+            "words=" + getWords() +
+            ", categories=" + getCategories() +
+            ", users=" + getUsers() +
+            "}";
+    }
+}
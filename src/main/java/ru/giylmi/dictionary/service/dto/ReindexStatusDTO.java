@@ -0,0 +1,129 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the progress of the reindex of an entity.
+ */
+public class ReindexStatusDTO implements Serializable {
+
+    /**
+     * The states of a reindex.
+     */
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    private String entity;
+
+    private String index;
+
+    private State state;
+
+    private long total;
+
+    private long indexed;
+
+    private double percentDone;
+
+    private double rowsPerSecond;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private String error;
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public void setIndex(String index) {
+        this.index = index;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(long indexed) {
+        this.indexed = indexed;
+    }
+
+    public double getPercentDone() {
+        return percentDone;
+    }
+
+    public void setPercentDone(double percentDone) {
+        this.percentDone = percentDone;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexStatusDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", index='" + getIndex() + "'" +
+            ", state='" + getState() + "'" +
+            ", total=" + getTotal() +
+            ", indexed=" + getIndexed() +
+            "}";
+    }
+}
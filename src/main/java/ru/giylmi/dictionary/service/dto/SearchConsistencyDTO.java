@@ -0,0 +1,151 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the result of the comparison of the rows of an entity with their Elasticsearch documents.
+ */
+public class SearchConsistencyDTO implements Serializable {
+
+    /**
+     * The states of a consistency check.
+     */
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    private String entity;
+
+    private State state;
+
+    private long checked;
+
+    private long ranges;
+
+    private long mismatchedRanges;
+
+    private long missing;
+
+    private long extra;
+
+    private long different;
+
+    private boolean repaired;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private String error;
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public long getChecked() {
+        return checked;
+    }
+
+    public void setChecked(long checked) {
+        this.checked = checked;
+    }
+
+    public long getRanges() {
+        return ranges;
+    }
+
+    public void setRanges(long ranges) {
+        this.ranges = ranges;
+    }
+
+    public long getMismatchedRanges() {
+        return mismatchedRanges;
+    }
+
+    public void setMismatchedRanges(long mismatchedRanges) {
+        this.mismatchedRanges = mismatchedRanges;
+    }
+
+    public long getMissing() {
+        return missing;
+    }
+
+    public void setMissing(long missing) {
+        this.missing = missing;
+    }
+
+    public long getExtra() {
+        return extra;
+    }
+
+    public void setExtra(long extra) {
+        this.extra = extra;
+    }
+
+    public long getDifferent() {
+        return different;
+    }
+
+    public void setDifferent(long different) {
+        this.different = different;
+    }
+
+    public boolean isRepaired() {
+        return repaired;
+    }
+
+    public void setRepaired(boolean repaired) {
+        this.repaired = repaired;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchConsistencyDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", state='" + getState() + "'" +
+            ", checked=" + getChecked() +
+            ", mismatchedRanges=" + getMismatchedRanges() +
+            ", missing=" + getMissing() +
+            ", extra=" + getExtra() +
+            ", different=" + getDifferent() +
+            "}";
+    }
+}
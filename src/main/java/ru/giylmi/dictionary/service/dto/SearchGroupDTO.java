@@ -0,0 +1,48 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the first hits of a search in one kind of entity, with the total number of hits.
+ */
+public class SearchGroupDTO<T> implements Serializable {
+
+    private long total;
+
+    private List<T> hits = new ArrayList<>();
+
+    public SearchGroupDTO() {
+    }
+
+    public SearchGroupDTO(long total, List<T> hits) {
+        this.total = total;
+        this.hits = hits;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<T> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<T> hits) {
+        this.hits = hits;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchGroupDTO{" +
+            "total=" + getTotal() +
+            ", hits=" + getHits() +
+            "}";
+    }
+}
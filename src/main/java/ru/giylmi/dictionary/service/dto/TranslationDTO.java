@@ -0,0 +1,65 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the translation of a single term.
+ */
+public class TranslationDTO implements Serializable {
+
+    private String term;
+
+    private List<WordDTO> words = new ArrayList<>();
+
+    private List<WordSuggestionDTO> didYouMean = new ArrayList<>();
+
+    public TranslationDTO() {
+    }
+
+    public TranslationDTO(String term) {
+        this.term = term;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public List<WordDTO> getWords() {
+        return words;
+    }
+
+    public void setWords(List<WordDTO> words) {
+        this.words = words;
+    }
+
+    /**
+     * @return true if at least one word translates the term
+     */
+    public boolean isFound() {
+        return !words.isEmpty();
+    }
+
+    public List<WordSuggestionDTO> getDidYouMean() {
+        return didYouMean;
+    }
+
+    public void setDidYouMean(List<WordSuggestionDTO> didYouMean) {
+        this.didYouMean = didYouMean;
+    }
+
+    @Override
+    public String toString() {
+        return "TranslationDTO{" +
+            "term='" + getTerm() + "'" +
+            ", words=" + getWords() +
+            ", didYouMean=" + getDidYouMean() +
+            "}";
+    }
+}
@@ -21,6 +21,25 @@ public class WordDTO implements Serializable {
 
     private CategoryDTO cat;
 
+    public WordDTO() {
+    }
+
+    /**
+     * Constructor used by the repository queries selecting words directly with their category.
+     */
+    public WordDTO(Long id, String rus, String en, String definition, Long categoryId, String categoryRus, String categoryEn) {
+        this.id = id;
+        this.rus = rus;
+        this.en = en;
+        this.definition = definition;
+        if (categoryId != null) {
+            this.cat = new CategoryDTO();
+            this.cat.setId(categoryId);
+            this.cat.setRus(categoryRus);
+            this.cat.setEn(categoryEn);
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,46 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a row that could not be imported.
+ */
+public class WordImportErrorDTO implements Serializable {
+
+    private long row;
+
+    private String message;
+
+    public WordImportErrorDTO() {
+    }
+
+    public WordImportErrorDTO(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "WordImportErrorDTO{" +
+            "row=" + getRow() +
+            ", message='" + getMessage() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,82 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for the outcome of a word import.
+ */
+public class WordImportReportDTO implements Serializable {
+
+    private long imported;
+
+    private long failed;
+
+    private int batches;
+
+    private long durationMillis;
+
+    private double wordsPerSecond;
+
+    private List<WordImportErrorDTO> errors = new ArrayList<>();
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public void setBatches(int batches) {
+        this.batches = batches;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public double getWordsPerSecond() {
+        return wordsPerSecond;
+    }
+
+    public void setWordsPerSecond(double wordsPerSecond) {
+        this.wordsPerSecond = wordsPerSecond;
+    }
+
+    public List<WordImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<WordImportErrorDTO> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return "WordImportReportDTO{" +
+            "imported=" + getImported() +
+            ", failed=" + getFailed() +
+            ", batches=" + getBatches() +
+            ", durationMillis=" + getDurationMillis() +
+            "}";
+    }
+}
@@ -0,0 +1,42 @@
+package ru.giylmi.dictionary.service.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * A page of words found by a search, telling whether it was served by the in-memory word index because
+ * Elasticsearch was unavailable.
+ */
+public class WordSearchPage extends PageImpl<WordDTO> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean degraded;
+
+    private final List<CategoryFacetDTO> facets;
+
+    public WordSearchPage(List<WordDTO> content, Pageable pageable, long total, boolean degraded) {
+        this(content, pageable, total, degraded, null);
+    }
+
+    public WordSearchPage(List<WordDTO> content, Pageable pageable, long total, boolean degraded,
+                          List<CategoryFacetDTO> facets) {
+        super(content, pageable, total);
+        this.degraded = degraded;
+        this.facets = facets;
+    }
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * @return the number of hits of the whole search in each category, by decreasing count, or null if they were
+     * not requested
+     */
+    public List<CategoryFacetDTO> getFacets() {
+        return facets;
+    }
+}
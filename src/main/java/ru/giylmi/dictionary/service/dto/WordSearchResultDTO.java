@@ -0,0 +1,48 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO for a page of Words found by a search, with the number of hits in each category.
+ */
+public class WordSearchResultDTO implements Serializable {
+
+    private List<WordDTO> words = new ArrayList<>();
+
+    private List<CategoryFacetDTO> categories = new ArrayList<>();
+
+    public WordSearchResultDTO() {
+    }
+
+    public WordSearchResultDTO(List<WordDTO> words, List<CategoryFacetDTO> categories) {
+        this.words = words;
+        this.categories = categories;
+    }
+
+    public List<WordDTO> getWords() {
+        return words;
+    }
+
+    public void setWords(List<WordDTO> words) {
+        this.words = words;
+    }
+
+    public List<CategoryFacetDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryFacetDTO> categories) {
+        this.categories = categories;
+    }
+
+    @Override
+    public String toString() {
+        return "WordSearchResultDTO{" +
+            "words=" + getWords() +
+            ", categories=" + getCategories() +
+            "}";
+    }
+}
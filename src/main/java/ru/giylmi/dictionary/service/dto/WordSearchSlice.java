@@ -0,0 +1,29 @@
+package ru.giylmi.dictionary.service.dto;
+
+import java.util.List;
+
+/**
+ * A page of words found by a search read from a cursor, with the cursor of the next page.
+ */
+public class WordSearchSlice {
+
+    private final List<WordDTO> words;
+
+    private final String nextCursor;
+
+    public WordSearchSlice(List<WordDTO> words, String nextCursor) {
+        this.words = words;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<WordDTO> getWords() {
+        return words;
+    }
+
+    /**
+     * @return the cursor of the next page, or null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
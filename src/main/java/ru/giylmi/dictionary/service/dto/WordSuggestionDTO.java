@@ -0,0 +1,70 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a single autocomplete suggestion of a Word term.
+ */
+public class WordSuggestionDTO implements Serializable {
+
+    private Long id;
+
+    private String term;
+
+    private String translation;
+
+    private Long categoryId;
+
+    public WordSuggestionDTO() {
+    }
+
+    public WordSuggestionDTO(Long id, String term, String translation, Long categoryId) {
+        this.id = id;
+        this.term = term;
+        this.translation = translation;
+        this.categoryId = categoryId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public String getTranslation() {
+        return translation;
+    }
+
+    public void setTranslation(String translation) {
+        this.translation = translation;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    @Override
+    public String toString() {
+        return "WordSuggestionDTO{" +
+            "id=" + getId() +
+            ", term='" + getTerm() + "'" +
+            ", translation='" + getTranslation() + "'" +
+            ", categoryId=" + getCategoryId() +
+            "}";
+    }
+}
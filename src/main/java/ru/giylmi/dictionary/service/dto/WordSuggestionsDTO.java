@@ -0,0 +1,40 @@
+package ru.giylmi.dictionary.service.dto;
+
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO grouping the autocomplete suggestions of a prefix by language.
+ */
+public class WordSuggestionsDTO implements Serializable {
+
+    private List<WordSuggestionDTO> rus = new ArrayList<>();
+
+    private List<WordSuggestionDTO> en = new ArrayList<>();
+
+    public List<WordSuggestionDTO> getRus() {
+        return rus;
+    }
+
+    public void setRus(List<WordSuggestionDTO> rus) {
+        this.rus = rus;
+    }
+
+    public List<WordSuggestionDTO> getEn() {
+        return en;
+    }
+
+    public void setEn(List<WordSuggestionDTO> en) {
+        this.en = en;
+    }
+
+    @Override
+    public String toString() {
+        return "WordSuggestionsDTO{" +
+            "rus=" + getRus() +
+            ", en=" + getEn() +
+            "}";
+    }
+}
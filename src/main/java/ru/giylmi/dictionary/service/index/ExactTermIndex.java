@@ -0,0 +1,87 @@
+package ru.giylmi.dictionary.service.index;
+
+import com.carrotsearch.hppc.ObjectObjectHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Hash index from a normalized term to the ids of the words carrying it.
+ *
+ * <p>
+ * Ids are kept in primitive arrays, as almost every term maps to a single word.
+ * This class is not thread-safe, callers must guard it.
+ * </p>
+ */
+public class ExactTermIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final ObjectObjectHashMap<String, long[]> ids;
+
+    public ExactTermIndex(int expectedSize) {
+        this.ids = new ObjectObjectHashMap<>(expectedSize);
+    }
+
+    public void add(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        long[] current = ids.get(key);
+        if (current == null) {
+            ids.put(key, new long[]{id});
+            return;
+        }
+        for (long existing : current) {
+            if (existing == id) {
+                return;
+            }
+        }
+        long[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = id;
+        ids.put(key, updated);
+    }
+
+    public void remove(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        long[] current = ids.get(key);
+        if (current == null) {
+            return;
+        }
+        int index = -1;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == id) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            ids.remove(key);
+            return;
+        }
+        long[] updated = new long[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        ids.put(key, updated);
+    }
+
+    /**
+     * @param key the normalized term
+     * @return the ids of the words with this term, never null
+     */
+    public long[] get(String key) {
+        if (key == null) {
+            return NO_IDS;
+        }
+        long[] result = ids.get(key);
+        return result == null ? NO_IDS : result;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
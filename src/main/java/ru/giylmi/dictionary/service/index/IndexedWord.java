@@ -0,0 +1,84 @@
+package ru.giylmi.dictionary.service.index;
+
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+
+/**
+ * An immutable, compact copy of a Word held by the in-process indexes.
+ *
+ * <p>
+ * Only the category id is kept, so that a renamed category does not require touching every word.
+ * </p>
+ */
+public final class IndexedWord {
+
+    public static final long NO_CATEGORY = -1L;
+
+    private final long id;
+
+    private final String rus;
+
+    private final String en;
+
+    private final String definition;
+
+    private final long categoryId;
+
+    public IndexedWord(long id, String rus, String en, String definition, long categoryId) {
+        this.id = id;
+        this.rus = rus;
+        this.en = en;
+        this.definition = definition;
+        this.categoryId = categoryId;
+    }
+
+    public static IndexedWord of(WordDTO wordDTO) {
+        CategoryDTO cat = wordDTO.getCat();
+        long categoryId = cat == null || cat.getId() == null ? NO_CATEGORY : cat.getId();
+        return new IndexedWord(wordDTO.getId(), wordDTO.getRus(), wordDTO.getEn(), wordDTO.getDefinition(), categoryId);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getRus() {
+        return rus;
+    }
+
+    public String getEn() {
+        return en;
+    }
+
+    public String getTerm(Language language) {
+        return language == Language.RU ? rus : en;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    public long getCategoryId() {
+        return categoryId;
+    }
+
+    public boolean hasCategory() {
+        return categoryId != NO_CATEGORY;
+    }
+
+    /**
+     * Build a fresh DTO for this word.
+     *
+     * @param cat the current state of the word category, may be null
+     * @return the word DTO
+     */
+    public WordDTO toDto(CategoryDTO cat) {
+        WordDTO wordDTO = new WordDTO();
+        wordDTO.setId(id);
+        wordDTO.setRus(rus);
+        wordDTO.setEn(en);
+        wordDTO.setDefinition(definition);
+        wordDTO.setCat(cat);
+        return wordDTO;
+    }
+}
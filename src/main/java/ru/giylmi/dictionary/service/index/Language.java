@@ -0,0 +1,45 @@
+package ru.giylmi.dictionary.service.index;
+
+/**
+ * The dictionary languages a term can be looked up in.
+ */
+public enum Language {
+
+    RU("ru"),
+    EN("en");
+
+    private final String code;
+
+    Language(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return the language a term of this language translates to
+     */
+    public Language other() {
+        return this == RU ? EN : RU;
+    }
+
+    /**
+     * Resolve a language from its request code.
+     *
+     * @param code the language code, "ru" or "en", case insensitive
+     * @return the language, or null if the code is unknown
+     */
+    public static Language fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        for (Language language : values()) {
+            if (language.code.equalsIgnoreCase(code.trim())) {
+                return language;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,80 @@
+package ru.giylmi.dictionary.service.index;
+
+/**
+ * The lookup structures built over the normalized terms of one language.
+ *
+ * <p>
+ * Stems are computed once when a term is added, so that lookups by inflected form only stem the looked up term.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe, callers must guard it.
+ * </p>
+ */
+public class LanguageIndex {
+
+    public static final int MAX_FUZZY_DISTANCE = 2;
+
+    private static final int FUZZY_PREFIX_LENGTH = 7;
+
+    private final Language language;
+
+    private final ExactTermIndex exact;
+
+    private final ExactTermIndex stems;
+
+    private final PrefixTrie trie;
+
+    private final SymmetricDeleteIndex fuzzy;
+
+    public LanguageIndex(Language language, int expectedSize) {
+        this.language = language;
+        this.exact = new ExactTermIndex(expectedSize);
+        this.stems = new ExactTermIndex(expectedSize);
+        this.trie = new PrefixTrie();
+        this.fuzzy = new SymmetricDeleteIndex(MAX_FUZZY_DISTANCE, FUZZY_PREFIX_LENGTH, expectedSize);
+    }
+
+    public void add(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        exact.add(key, id);
+        stems.add(TermStemmer.stemKey(language, key), id);
+        trie.add(key, id);
+        if (exact.get(key).length == 1) {
+            fuzzy.add(key);
+        }
+    }
+
+    public void remove(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        exact.remove(key, id);
+        stems.remove(TermStemmer.stemKey(language, key), id);
+        trie.remove(key, id);
+        if (exact.get(key).length == 0) {
+            fuzzy.remove(key);
+        }
+    }
+
+    public ExactTermIndex getExact() {
+        return exact;
+    }
+
+    /**
+     * @return the index from the stem of a term to the ids of the words carrying it
+     */
+    public ExactTermIndex getStems() {
+        return stems;
+    }
+
+    public PrefixTrie getTrie() {
+        return trie;
+    }
+
+    public SymmetricDeleteIndex getFuzzy() {
+        return fuzzy;
+    }
+}
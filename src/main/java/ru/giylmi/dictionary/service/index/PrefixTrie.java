@@ -0,0 +1,256 @@
+package ru.giylmi.dictionary.service.index;
+
+import java.util.Arrays;
+
+/**
+ * Compressed (radix) trie from a normalized term to the ids of the words carrying it.
+ *
+ * <p>
+ * Edges are labelled with whole runs of characters and children are kept sorted by their first character,
+ * so completions of a prefix are visited in lexicographic order and the walk can stop as soon as enough are found.
+ * This class is not thread-safe, callers must guard it.
+ * </p>
+ */
+public class PrefixTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final long[] NO_IDS = new long[0];
+
+    /**
+     * Callback receiving the completions of a prefix.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * @param key the completed normalized term
+         * @param ids the ids of the words carrying this term
+         * @return true to keep visiting, false to stop
+         */
+        boolean visit(String key, long[] ids);
+    }
+
+    private final Node root = new Node("");
+
+    private int size;
+
+    public void add(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int slot = Arrays.binarySearch(node.keys, key.charAt(pos));
+            if (slot < 0) {
+                Node leaf = new Node(key.substring(pos));
+                leaf.ids = new long[]{id};
+                node.insertChild(-slot - 1, leaf);
+                size++;
+                return;
+            }
+            Node child = node.children[slot];
+            int common = commonPrefix(child.label, key, pos);
+            if (common < child.label.length()) {
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.keys = new char[]{child.label.charAt(0)};
+                middle.children = new Node[]{child};
+                node.children[slot] = middle;
+                child = middle;
+            }
+            node = child;
+            pos += common;
+        }
+        if (node.ids.length == 0) {
+            size++;
+        }
+        node.ids = addId(node.ids, id);
+    }
+
+    public void remove(String key, long id) {
+        if (key == null) {
+            return;
+        }
+        Node parent = null;
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int slot = Arrays.binarySearch(node.keys, key.charAt(pos));
+            if (slot < 0) {
+                return;
+            }
+            Node child = node.children[slot];
+            if (!key.startsWith(child.label, pos)) {
+                return;
+            }
+            parent = node;
+            node = child;
+            pos += child.label.length();
+        }
+        long[] ids = removeId(node.ids, id);
+        if (ids == node.ids) {
+            return;
+        }
+        node.ids = ids;
+        if (ids.length > 0 || parent == null) {
+            return;
+        }
+        size--;
+        if (node.children.length == 0) {
+            parent.removeChild(node.label.charAt(0));
+            if (parent != root && parent.ids.length == 0 && parent.children.length == 1) {
+                parent.mergeWithOnlyChild();
+            }
+        } else if (node.children.length == 1) {
+            node.mergeWithOnlyChild();
+        }
+    }
+
+    /**
+     * Visit the keys starting with the given prefix, in lexicographic order.
+     *
+     * @param prefix the normalized prefix
+     * @param visitor the callback, which can stop the walk
+     */
+    public void visit(String prefix, Visitor visitor) {
+        if (prefix == null) {
+            return;
+        }
+        Node node = root;
+        StringBuilder path = new StringBuilder();
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int slot = Arrays.binarySearch(node.keys, prefix.charAt(pos));
+            if (slot < 0) {
+                return;
+            }
+            Node child = node.children[slot];
+            int common = commonPrefix(child.label, prefix, pos);
+            if (pos + common < prefix.length() && common < child.label.length()) {
+                return;
+            }
+            path.append(child.label);
+            node = child;
+            pos += common;
+        }
+        walk(node, path, visitor);
+    }
+
+    /**
+     * @return the number of distinct keys in the trie
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean walk(Node node, StringBuilder path, Visitor visitor) {
+        if (node.ids.length > 0 && !visitor.visit(path.toString(), node.ids)) {
+            return false;
+        }
+        for (Node child : node.children) {
+            int length = path.length();
+            path.append(child.label);
+            boolean keepGoing = walk(child, path, visitor);
+            path.setLength(length);
+            if (!keepGoing) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int commonPrefix(String label, String key, int pos) {
+        int max = Math.min(label.length(), key.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static long[] addId(long[] ids, long id) {
+        for (long existing : ids) {
+            if (existing == id) {
+                return ids;
+            }
+        }
+        long[] updated = Arrays.copyOf(ids, ids.length + 1);
+        updated[ids.length] = id;
+        return updated;
+    }
+
+    private static long[] removeId(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                if (ids.length == 1) {
+                    return NO_IDS;
+                }
+                long[] updated = new long[ids.length - 1];
+                System.arraycopy(ids, 0, updated, 0, i);
+                System.arraycopy(ids, i + 1, updated, i, ids.length - i - 1);
+                return updated;
+            }
+        }
+        return ids;
+    }
+
+    private static final class Node {
+
+        private String label;
+
+        private char[] keys = NO_KEYS;
+
+        private Node[] children = NO_CHILDREN;
+
+        private long[] ids = NO_IDS;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private void insertChild(int slot, Node child) {
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, slot);
+            System.arraycopy(children, 0, newChildren, 0, slot);
+            newKeys[slot] = child.label.charAt(0);
+            newChildren[slot] = child;
+            System.arraycopy(keys, slot, newKeys, slot + 1, keys.length - slot);
+            System.arraycopy(children, slot, newChildren, slot + 1, children.length - slot);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void removeChild(char key) {
+            int slot = Arrays.binarySearch(keys, key);
+            if (slot < 0) {
+                return;
+            }
+            if (keys.length == 1) {
+                keys = NO_KEYS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, slot);
+            System.arraycopy(children, 0, newChildren, 0, slot);
+            System.arraycopy(keys, slot + 1, newKeys, slot, keys.length - slot - 1);
+            System.arraycopy(children, slot + 1, newChildren, slot, children.length - slot - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void mergeWithOnlyChild() {
+            Node child = children[0];
+            label = label + child.label;
+            ids = child.ids;
+            keys = child.keys;
+            children = child.children;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package ru.giylmi.dictionary.service.index;
+
+import com.carrotsearch.hppc.ObjectObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Typo-tolerant index of normalized terms, following the symmetric delete algorithm of SymSpell.
+ *
+ * <p>
+ * Every term is stored under all the strings obtained by deleting up to {@code maxDistance} characters from its
+ * first {@code prefixLength} characters. A lookup generates the same deletes for the input, so that candidates
+ * are found with a handful of hash lookups, and only those candidates are checked with an edit distance.
+ * Terms are compared char by char, which covers cyrillic as it lives in the basic multilingual plane.
+ * This class is not thread-safe, callers must guard it.
+ * </p>
+ */
+public class SymmetricDeleteIndex {
+
+    private final int maxDistance;
+
+    private final int prefixLength;
+
+    private final ObjectObjectHashMap<String, String[]> deletes;
+
+    /**
+     * A term of the index within the requested distance of a looked up term.
+     */
+    public static final class Match {
+
+        private final String term;
+
+        private final int distance;
+
+        private Match(String term, int distance) {
+            this.term = term;
+            this.distance = distance;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+    }
+
+    public SymmetricDeleteIndex(int maxDistance, int prefixLength, int expectedSize) {
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+        this.deletes = new ObjectObjectHashMap<>(expectedSize);
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    public void add(String term) {
+        if (term == null) {
+            return;
+        }
+        for (String delete : deletesOf(prefix(term), maxDistance)) {
+            String[] terms = deletes.get(delete);
+            if (terms == null) {
+                deletes.put(delete, new String[]{term});
+            } else if (indexOf(terms, term) < 0) {
+                String[] updated = Arrays.copyOf(terms, terms.length + 1);
+                updated[terms.length] = term;
+                deletes.put(delete, updated);
+            }
+        }
+    }
+
+    public void remove(String term) {
+        if (term == null) {
+            return;
+        }
+        for (String delete : deletesOf(prefix(term), maxDistance)) {
+            String[] terms = deletes.get(delete);
+            if (terms == null) {
+                continue;
+            }
+            int index = indexOf(terms, term);
+            if (index < 0) {
+                continue;
+            }
+            if (terms.length == 1) {
+                deletes.remove(delete);
+                continue;
+            }
+            String[] updated = new String[terms.length - 1];
+            System.arraycopy(terms, 0, updated, 0, index);
+            System.arraycopy(terms, index + 1, updated, index, terms.length - index - 1);
+            deletes.put(delete, updated);
+        }
+    }
+
+    /**
+     * Find the indexed terms within the given edit distance of a term.
+     *
+     * @param term the normalized term
+     * @param distance the maximum edit distance, capped to the one the index was built with
+     * @param limit the maximum number of matches
+     * @return the matches, closest first then in lexicographic order
+     */
+    public List<Match> lookup(String term, int distance, int limit) {
+        if (term == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int max = Math.min(distance, maxDistance);
+        Set<String> checked = new HashSet<>();
+        List<Match> matches = new ArrayList<>();
+        for (String delete : deletesOf(prefix(term), max)) {
+            String[] terms = deletes.get(delete);
+            if (terms == null) {
+                continue;
+            }
+            for (String candidate : terms) {
+                if (!checked.add(candidate) || Math.abs(candidate.length() - term.length()) > max) {
+                    continue;
+                }
+                int candidateDistance = distance(term, candidate, max);
+                if (candidateDistance <= max) {
+                    matches.add(new Match(candidate, candidateDistance));
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getDistance).thenComparing(Match::getTerm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private String prefix(String term) {
+        return term.length() > prefixLength ? term.substring(0, prefixLength) : term;
+    }
+
+    private static Set<String> deletesOf(String term, int distance) {
+        Set<String> result = new HashSet<>();
+        result.add(term);
+        List<String> current = new ArrayList<>();
+        current.add(term);
+        for (int d = 0; d < distance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String s : current) {
+                for (int i = 0; i < s.length(); i++) {
+                    String delete = s.substring(0, i) + s.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            current = next;
+        }
+        return result;
+    }
+
+    private static int indexOf(String[] terms, String term) {
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i].equals(term)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Optimal string alignment distance: Levenshtein plus transposition of adjacent characters.
+     *
+     * @return the distance, or max + 1 as soon as it is known to exceed max
+     */
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    /**
+     * @return the number of distinct deletes held by the index
+     */
+    public int size() {
+        return deletes.size();
+    }
+}
@@ -0,0 +1,255 @@
+package ru.giylmi.dictionary.service.index;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Aho-Corasick automaton over normalized terms, finding every term occurring in a text in a single pass.
+ *
+ * <p>
+ * Terms are added to and removed from the goto trie in place, a removed term pruning the nodes it leaves without a
+ * term or a child. Since a change can move the failure links of nodes far from the changed term, the links are
+ * recomputed in one breadth-first pass by {@link #link()}, which callers run once after a batch of changes rather
+ * than after each of them. Until then, the nodes added since the last pass fall back to the root, so a text scanned
+ * meanwhile may miss the occurrences of the new terms, never report wrong ones.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe, callers must guard it. To keep a long pass off their lock, callers can
+ * {@link #copy()} the automaton and link the copy instead, which is left unchanged once linked.
+ * </p>
+ */
+public class TermAutomaton {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root = new Node();
+
+    private boolean linked = true;
+
+    private int size;
+
+    private long modCount;
+
+    public TermAutomaton() {
+        root.fail = root;
+    }
+
+    public void add(String key) {
+        if (key == null) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            int slot = Arrays.binarySearch(node.keys, c);
+            if (slot < 0) {
+                Node child = new Node();
+                node.insertChild(-slot - 1, c, child);
+                linked = false;
+                modCount++;
+                node = child;
+            } else {
+                node = node.children[slot];
+            }
+        }
+        if (node.key == null) {
+            node.key = key;
+            size++;
+            linked = false;
+            modCount++;
+        }
+    }
+
+    public void remove(String key) {
+        if (key == null) {
+            return;
+        }
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        if (path[key.length()].key == null) {
+            return;
+        }
+        path[key.length()].key = null;
+        size--;
+        linked = false;
+        modCount++;
+        // The nodes left without a term or a child are pruned, deepest first
+        for (int i = key.length(); i > 0 && path[i].key == null && path[i].children.length == 0; i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+        }
+    }
+
+    /**
+     * Copy the terms into a new automaton, whose failure links are left to compute.
+     *
+     * @return the copy, sharing no node with this automaton
+     */
+    public TermAutomaton copy() {
+        TermAutomaton copy = new TermAutomaton();
+        copy.size = size;
+        copy.modCount = modCount;
+        copy.linked = root.children.length == 0;
+        Deque<Node[]> queue = new ArrayDeque<>();
+        queue.add(new Node[]{root, copy.root});
+        while (!queue.isEmpty()) {
+            Node[] pair = queue.poll();
+            Node node = pair[0];
+            Node copied = pair[1];
+            copied.key = node.key;
+            // The keys are replaced, never changed in place, so they can be shared
+            copied.keys = node.keys;
+            copied.children = node.children.length == 0 ? NO_CHILDREN : new Node[node.children.length];
+            for (int i = 0; i < node.children.length; i++) {
+                copied.children[i] = new Node();
+                queue.add(new Node[]{node.children[i], copied.children[i]});
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @return true if the failure links reflect every added and removed term
+     */
+    public boolean isLinked() {
+        return linked;
+    }
+
+    /**
+     * Recompute the failure links and the output links of every node, breadth first.
+     */
+    public void link() {
+        if (linked) {
+            return;
+        }
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children) {
+            child.fail = root;
+            child.output = null;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.children.length; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                while (fail != root && fail.child(c) == null) {
+                    fail = fail.fail;
+                }
+                Node target = fail.child(c);
+                child.fail = target == null ? root : target;
+                child.output = child.fail.key != null ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+        linked = true;
+    }
+
+    /**
+     * @return the number of terms in the automaton
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of changes made to the terms, kept by a copy, to tell whether the copy is outdated
+     */
+    public long getModCount() {
+        return modCount;
+    }
+
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Move from a state on the next character of the text.
+     *
+     * @param state the current state
+     * @param c the next normalized character
+     * @return the new state, whose term and output links are the terms ending at this character
+     */
+    Node next(Node state, char c) {
+        Node node = state;
+        while (node != root) {
+            Node child = node.child(c);
+            if (child != null) {
+                return child;
+            }
+            node = node.fail == null ? root : node.fail;
+        }
+        Node child = root.child(c);
+        return child == null ? root : child;
+    }
+
+    static final class Node {
+
+        private char[] keys = NO_KEYS;
+
+        private Node[] children = NO_CHILDREN;
+
+        private Node fail;
+
+        private Node output;
+
+        private String key;
+
+        /**
+         * @return the term ending at this node, or null if the node is only a prefix
+         */
+        String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the closest node along the failure links carrying a term, or null if there is none
+         */
+        Node getOutput() {
+            return output;
+        }
+
+        private Node child(char c) {
+            int slot = Arrays.binarySearch(keys, c);
+            return slot < 0 ? null : children[slot];
+        }
+
+        private void insertChild(int slot, char c, Node child) {
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, slot);
+            System.arraycopy(children, 0, newChildren, 0, slot);
+            newKeys[slot] = c;
+            newChildren[slot] = child;
+            System.arraycopy(keys, slot, newKeys, slot + 1, keys.length - slot);
+            System.arraycopy(children, slot, newChildren, slot + 1, children.length - slot);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void removeChild(char c) {
+            int slot = Arrays.binarySearch(keys, c);
+            if (slot < 0) {
+                return;
+            }
+            char[] newKeys = keys.length == 1 ? NO_KEYS : new char[keys.length - 1];
+            Node[] newChildren = children.length == 1 ? NO_CHILDREN : new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, slot);
+            System.arraycopy(children, 0, newChildren, 0, slot);
+            System.arraycopy(keys, slot + 1, newKeys, slot, keys.length - slot - 1);
+            System.arraycopy(children, slot + 1, newChildren, slot, children.length - slot - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+}
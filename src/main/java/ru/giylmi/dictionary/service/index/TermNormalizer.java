@@ -0,0 +1,48 @@
+package ru.giylmi.dictionary.service.index;
+
+/**
+ * Utility class for normalizing dictionary terms into index keys.
+ */
+public final class TermNormalizer {
+
+    private TermNormalizer() {
+    }
+
+    /**
+     * Normalize a term: trim it, collapse inner whitespace, lower case it and fold "ё" into "е".
+     *
+     * @param term the raw term
+     * @return the normalized key, or null if the term is null or blank
+     */
+    public static String normalize(String term) {
+        if (term == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(term.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            sb.append(fold(c));
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    /**
+     * Fold a single non-whitespace character the way {@link #normalize(String)} does.
+     *
+     * @param c the raw character
+     * @return the character lower cased, with "ё" folded into "е"
+     */
+    public static char fold(char c) {
+        c = Character.toLowerCase(c);
+        return c == 'ё' ? 'е' : c;
+    }
+}
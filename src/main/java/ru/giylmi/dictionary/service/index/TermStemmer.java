@@ -0,0 +1,56 @@
+package ru.giylmi.dictionary.service.index;
+
+import org.tartarus.snowball.SnowballProgram;
+import org.tartarus.snowball.ext.EnglishStemmer;
+import org.tartarus.snowball.ext.RussianStemmer;
+
+/**
+ * Utility class reducing dictionary terms to their Snowball stems, so that inflected forms
+ * ("словами", "домов") share a key with their headword ("слово", "дом").
+ */
+public final class TermStemmer {
+
+    private TermStemmer() {
+    }
+
+    /**
+     * Normalize a term then stem each of its words.
+     *
+     * @param language the language of the term
+     * @param term the raw term
+     * @return the stemmed key, or null if the term is null or blank
+     */
+    public static String stem(Language language, String term) {
+        return stemKey(language, TermNormalizer.normalize(term));
+    }
+
+    /**
+     * Stem each word of an already normalized term.
+     *
+     * @param language the language of the term
+     * @param key the normalized term, as returned by {@link TermNormalizer#normalize(String)}
+     * @return the stemmed key, or null if the key is null
+     */
+    public static String stemKey(Language language, String key) {
+        if (key == null) {
+            return null;
+        }
+        SnowballProgram stemmer = language == Language.RU ? new RussianStemmer() : new EnglishStemmer();
+        StringBuilder sb = new StringBuilder(key.length());
+        int start = 0;
+        while (start <= key.length()) {
+            int end = key.indexOf(' ', start);
+            if (end < 0) {
+                end = key.length();
+            }
+            stemmer.setCurrent(key.substring(start, end));
+            stemmer.stem();
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(stemmer.getCurrent());
+            start = end + 1;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,289 @@
+package ru.giylmi.dictionary.service.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scanner finding the terms of a {@link TermAutomaton} in a text fed chunk by chunk.
+ *
+ * <p>
+ * The text is normalized on the fly like the terms: whitespace runs count as a single space, characters are folded.
+ * Only the occurrences starting and ending on a word boundary are reported, with their offsets in the raw text.
+ * An occurrence is held back until the character following it is known, so it may be reported by the next chunk.
+ * In HTML, the markup counts as whitespace and its text is not matched, while the offsets still count it. The markup
+ * covers the tags, the bodies of the script and style elements, and the character references of up to
+ * {@value #MAX_ENTITY_LENGTH} characters, an ampersand starting anything else being read as text.
+ * </p>
+ *
+ * <p>
+ * Only the last {@value #WINDOW} normalized characters are kept, which bounds the length of the reported terms.
+ * This class is not thread-safe, and its automaton must not change while it is fed.
+ * </p>
+ */
+public class TextAnnotator {
+
+    static final int WINDOW = 512;
+
+    private static final int MASK = WINDOW - 1;
+
+    static final int MAX_ENTITY_LENGTH = 10;
+
+    /**
+     * The longest name of the elements whose body is skipped, "script" and "style".
+     */
+    private static final int MAX_RAW_TEXT_NAME_LENGTH = 6;
+
+    /**
+     * Callback receiving the occurrences found.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * @param start the offset of the first character of the occurrence in the raw text
+         * @param end the offset following the last character of the occurrence in the raw text
+         * @param key the normalized term
+         */
+        void match(long start, long end, String key);
+    }
+
+    private final TermAutomaton automaton;
+
+    private final boolean html;
+
+    private final Listener listener;
+
+    private final char[] chars = new char[WINDOW];
+
+    private final long[] offsets = new long[WINDOW];
+
+    private final List<Occurrence> pending = new ArrayList<>();
+
+    private final char[] entity = new char[MAX_ENTITY_LENGTH];
+
+    private final StringBuilder tagName = new StringBuilder();
+
+    private TermAutomaton.Node state;
+
+    private long position;
+
+    private long offset;
+
+    private long spaceOffset = -1;
+
+    private boolean inTag;
+
+    private boolean inEntity;
+
+    private int entityLength;
+
+    private long entityOffset;
+
+    private boolean inTagName;
+
+    /**
+     * The start of the closing tag ending the body being skipped, or null outside a script or style element.
+     */
+    private String rawTextEnd;
+
+    private int rawTextMatched;
+
+    public TextAnnotator(TermAutomaton automaton, boolean html, Listener listener) {
+        this.automaton = automaton;
+        this.html = html;
+        this.listener = listener;
+        this.state = automaton.getRoot();
+    }
+
+    /**
+     * Scan the next chunk of the text.
+     *
+     * @param buffer the characters of the chunk
+     * @param length the number of characters of the chunk in the buffer
+     */
+    public void feed(char[] buffer, int length) {
+        for (int i = 0; i < length; i++, offset++) {
+            char c = buffer[i];
+            if (!html || !scanMarkup(c)) {
+                scanText(c, offset);
+            }
+        }
+    }
+
+    /**
+     * Report the occurrences held back at the end of the text.
+     */
+    public void finish() {
+        if (inEntity) {
+            endEntityAsText();
+        }
+        flush();
+    }
+
+    private void scanText(char c, long rawOffset) {
+        if (Character.isWhitespace(c)) {
+            skip(rawOffset);
+            return;
+        }
+        if (spaceOffset >= 0) {
+            if (position > 0) {
+                accept(' ', spaceOffset);
+            }
+            spaceOffset = -1;
+        }
+        accept(TermNormalizer.fold(c), rawOffset);
+    }
+
+    private boolean scanMarkup(char c) {
+        if (rawTextEnd != null) {
+            scanRawText(c);
+            return true;
+        }
+        if (inTag) {
+            scanTag(c);
+            return true;
+        }
+        if (inEntity) {
+            if (c == ';' && entityLength > 0) {
+                inEntity = false;
+                skip(entityOffset);
+                return true;
+            }
+            if (entityLength < MAX_ENTITY_LENGTH && (c == '#' || isAsciiLetterOrDigit(c))) {
+                entity[entityLength++] = c;
+                return true;
+            }
+            endEntityAsText();
+        }
+        if (c == '<') {
+            inTag = true;
+            inTagName = true;
+            tagName.setLength(0);
+            skip(offset);
+            return true;
+        }
+        if (c == '&') {
+            inEntity = true;
+            entityLength = 0;
+            entityOffset = offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void scanTag(char c) {
+        if (c == '>') {
+            inTag = false;
+            String name = tagName.toString();
+            if (name.equals("script") || name.equals("style")) {
+                rawTextEnd = "</" + name;
+                rawTextMatched = 0;
+            }
+        } else if (inTagName) {
+            inTagName = Character.isLetterOrDigit(c);
+            if (inTagName && tagName.length() <= MAX_RAW_TEXT_NAME_LENGTH) {
+                tagName.append(Character.toLowerCase(c));
+            }
+        }
+    }
+
+    /**
+     * Skip the body of a script or style element up to its closing tag, whose name ends the body whatever its case.
+     */
+    private void scanRawText(char c) {
+        if (Character.toLowerCase(c) == rawTextEnd.charAt(rawTextMatched)) {
+            rawTextMatched++;
+            if (rawTextMatched == rawTextEnd.length()) {
+                rawTextEnd = null;
+                inTag = true;
+                inTagName = false;
+                tagName.setLength(0);
+            }
+        } else {
+            rawTextMatched = c == '<' ? 1 : 0;
+        }
+    }
+
+    /**
+     * Read the ampersand and the characters following it as text, as they do not form a character reference.
+     */
+    private void endEntityAsText() {
+        inEntity = false;
+        scanText('&', entityOffset);
+        for (int i = 0; i < entityLength; i++) {
+            scanText(entity[i], entityOffset + 1 + i);
+        }
+    }
+
+    private void skip(long rawOffset) {
+        if (spaceOffset < 0) {
+            spaceOffset = rawOffset;
+        }
+    }
+
+    private void accept(char c, long rawOffset) {
+        if (isWordChar(c)) {
+            pending.clear();
+        } else {
+            flush();
+        }
+        int slot = (int) (position & MASK);
+        chars[slot] = c;
+        offsets[slot] = rawOffset;
+        state = automaton.next(state, c);
+        for (TermAutomaton.Node node = state; node != null && node != automaton.getRoot(); node = node.getOutput()) {
+            String key = node.getKey();
+            if (key != null) {
+                collect(key);
+            }
+        }
+        position++;
+    }
+
+    private void collect(String key) {
+        if (key.length() >= WINDOW) {
+            return;
+        }
+        long start = position - key.length() + 1;
+        if (isWordChar(key.charAt(0)) && start > 0 && isWordChar(chars[(int) ((start - 1) & MASK)])) {
+            return;
+        }
+        Occurrence occurrence = new Occurrence(offsets[(int) (start & MASK)], offsets[(int) (position & MASK)] + 1, key);
+        if (isWordChar(key.charAt(key.length() - 1))) {
+            // Whether the term ends on a word boundary depends on the next character
+            pending.add(occurrence);
+        } else {
+            listener.match(occurrence.start, occurrence.end, occurrence.key);
+        }
+    }
+
+    private void flush() {
+        for (Occurrence occurrence : pending) {
+            listener.match(occurrence.start, occurrence.end, occurrence.key);
+        }
+        pending.clear();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+
+    private static final class Occurrence {
+
+        private final long start;
+
+        private final long end;
+
+        private final String key;
+
+        private Occurrence(long start, long end, String key) {
+            this.start = start;
+            this.end = end;
+            this.key = key;
+        }
+    }
+}
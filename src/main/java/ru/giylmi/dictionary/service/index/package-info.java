@@ -0,0 +1,4 @@
+/**
+ * In-process dictionary index structures used by the service layer.
+ */
+package ru.giylmi.dictionary.service.index;
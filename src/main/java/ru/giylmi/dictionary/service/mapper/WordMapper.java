@@ -2,6 +2,8 @@ package ru.giylmi.dictionary.service.mapper;
 
 import ru.giylmi.dictionary.domain.*;
 import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.index.TermStemmer;
 
 import org.mapstruct.*;
 
@@ -12,8 +14,24 @@ import org.mapstruct.*;
 public interface WordMapper extends EntityMapper <WordDTO, Word> {
     @Mapping(source = "category", target = "cat")
     WordDTO toDto(Word word);
-    @Mapping(source = "cat", target = "category")
+    @Mappings({
+        @Mapping(source = "cat", target = "category"),
+        @Mapping(target = "rusStem", ignore = true),
+        @Mapping(target = "enStem", ignore = true)
+    })
     Word toEntity(WordDTO wordDTO);
+
+    /**
+     * Stems are computed when the entity is written, so that searches by inflected form only stem the query.
+     *
+     * @param word the mapped entity
+     */
+    @AfterMapping
+    default void updateStems(@MappingTarget Word word) {
+        word.setRusStem(TermStemmer.stem(Language.RU, word.getRus()));
+        word.setEnStem(TermStemmer.stem(Language.EN, word.getEn()));
+    }
+
     /**
      * generating the fromId for all mappers if the databaseType is sql, as the class has relationship to it might need it, instead of
      * creating a new attribute to know if the entity has any relationship from some other entity
@@ -0,0 +1,141 @@
+package ru.giylmi.dictionary.service.util;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker counting the failed and the slow calls to a remote service.
+ *
+ * <p>
+ * The outcomes of the last calls are kept in a sliding window. When the share of failed or slow calls in a full window
+ * reaches the threshold, the breaker opens and refuses the calls for a while. It then lets a single trial call through:
+ * the breaker closes again if it succeeds fast enough, and opens again otherwise.
+ * </p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of the breaker.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final boolean[] window;
+
+    private final int failureRateThreshold;
+
+    private final long slowCallMillis;
+
+    private final long openMillis;
+
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+
+    private int calls;
+
+    private int position;
+
+    private int failures;
+
+    private long openedAt;
+
+    private boolean trialCallRunning;
+
+    /**
+     * @param windowSize the number of calls whose outcome is kept
+     * @param failureRateThreshold the percentage of failed or slow calls in the window that opens the breaker
+     * @param slowCallMillis the duration from which a successful call counts as a failure
+     * @param openMillis how long the breaker stays open before a trial call
+     * @param clock the source of the current time, in milliseconds
+     */
+    public CircuitBreaker(int windowSize, int failureRateThreshold, long slowCallMillis, long openMillis, LongSupplier clock) {
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Ask for the permission to call the service. Each permitted call must be followed by
+     * {@link #onSuccess(long)} or {@link #onFailure()}.
+     *
+     * @return true if the call may be made, false if it must be replaced by a fallback
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialCallRunning) {
+                return false;
+            }
+            trialCallRunning = true;
+            return true;
+        }
+        return state == State.CLOSED;
+    }
+
+    /**
+     * Record a call that returned.
+     *
+     * @param durationMillis the duration of the call, a slow call counting as a failure
+     */
+    public synchronized void onSuccess(long durationMillis) {
+        record(durationMillis >= slowCallMillis);
+    }
+
+    /**
+     * Record a call that failed or timed out.
+     */
+    public synchronized void onFailure() {
+        record(true);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (state == State.HALF_OPEN) {
+            trialCallRunning = false;
+            if (failed) {
+                open();
+            } else {
+                reset();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call permitted before the breaker opened
+            return;
+        }
+        if (calls == window.length && window[position]) {
+            failures--;
+        }
+        window[position] = failed;
+        if (failed) {
+            failures++;
+        }
+        position = (position + 1) % window.length;
+        calls = Math.min(calls + 1, window.length);
+        if (calls == window.length && failures * 100 >= failureRateThreshold * window.length) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        Arrays.fill(window, false);
+        calls = 0;
+        position = 0;
+        failures = 0;
+    }
+}
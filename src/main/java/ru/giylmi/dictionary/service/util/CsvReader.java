@@ -0,0 +1,94 @@
+package ru.giylmi.dictionary.service.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of RFC 4180 CSV records, one record at a time.
+ *
+ * <p>
+ * Quoted fields may contain separators, doubled quotes and line breaks.
+ * </p>
+ */
+public class CsvReader {
+
+    private final Reader reader;
+
+    private int next = -2;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Read the next record.
+     *
+     * @return the fields of the record, or null at the end of the input
+     * @throws MalformedCsvException if the input ends within a quoted field
+     * @throws IOException if the input could not be read
+     */
+    public List<String> read() throws IOException {
+        int c = peek();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            c = take();
+            if (quoted) {
+                if (c < 0) {
+                    throw new MalformedCsvException("Unterminated quoted field");
+                } else if (c == '"' && peek() == '"') {
+                    take();
+                    field.append('"');
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    take();
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+        }
+        return next;
+    }
+
+    private int take() throws IOException {
+        int c = peek();
+        next = -2;
+        return c;
+    }
+
+    /**
+     * Thrown when the input is not valid CSV, as opposed to an input that could not be read.
+     */
+    public static class MalformedCsvException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public MalformedCsvException(String message) {
+            super(message);
+        }
+    }
+}
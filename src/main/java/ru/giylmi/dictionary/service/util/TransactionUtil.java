@@ -0,0 +1,33 @@
+package ru.giylmi.dictionary.service.util;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility class for running actions outside of the current transaction.
+ */
+public final class TransactionUtil {
+
+    private TransactionUtil() {
+    }
+
+    /**
+     * Run an action once the current transaction has committed, or at once if there is no transaction. The action is
+     * dropped if the transaction rolls back, so that it never publishes changes the database does not have.
+     *
+     * @param action the action, typically updating an in-memory copy of the committed rows
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,183 @@
+package ru.giylmi.dictionary.service.util;
+
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.index.TermStemmer;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Utility class building the Elasticsearch queries on the word documents.
+ *
+ * <p>
+ * The queries target the subfields of the word mapping ("config/elasticsearch/word-mapping.json"): "keyword" for
+ * exact matches, "prefix" (edge n-grams) for prefixes and the stemmed fields for full text, instead of scanning
+ * the term dictionary with wildcards.
+ * </p>
+ */
+public final class WordQueryUtil {
+
+    private static final float EXACT_BOOST = 10;
+
+    private static final float PREFIX_BOOST = 2;
+
+    private static final String QUERY_STRING_CHARS = "\"~^\\";
+
+    private static final Pattern QUERY_STRING_FIELD = Pattern.compile("[\\p{L}\\p{N}_.]+:\\S");
+
+    private static final List<String> QUERY_STRING_OPERATORS = Arrays.asList("AND", "OR", "NOT", "&&", "||");
+
+    /**
+     * How a searched term is matched against the words.
+     */
+    public enum MatchMode {
+
+        /** The whole term equals the word, ignoring case. */
+        EXACT("exact"),
+        /** Each word of the term starts a word of the term of the word. */
+        PREFIX("prefix"),
+        /** The term shares stems with the word. */
+        MATCH("match");
+
+        private final String code;
+
+        MatchMode(String code) {
+            this.code = code;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        /**
+         * Resolve a match mode from its request code.
+         *
+         * @param code the mode code, "exact", "prefix" or "match", case insensitive
+         * @return the match mode, or null if the code is unknown
+         */
+        public static MatchMode fromCode(String code) {
+            if (code == null) {
+                return null;
+            }
+            for (MatchMode mode : values()) {
+                if (mode.code.equalsIgnoreCase(code.trim())) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    private WordQueryUtil() {
+    }
+
+    /**
+     * Tell whether a query explicitly uses the query string syntax: a field ("rus:дом"), an operator, a phrase, a
+     * fuzziness or a boost, a wildcard inside or at the start of a word, or a regular expression. Punctuation that is
+     * only reserved by the syntax ("what?", "rock&roll", "и/или") leaves the query plain text, which is matched as is.
+     *
+     * @param query the query
+     * @return true if the query must be parsed as a query string
+     */
+    public static boolean isQueryString(String query) {
+        String text = query.trim();
+        if (text.length() > 2 && text.startsWith("/") && text.endsWith("/")) {
+            return true;
+        }
+        if (QUERY_STRING_FIELD.matcher(text).find()) {
+            return true;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (QUERY_STRING_CHARS.indexOf(text.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        for (String word : text.split("\\s+")) {
+            if (QUERY_STRING_OPERATORS.contains(word) || stripWildcards(word).indexOf('*') >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the query finding the words matching a text, best matches first: the words equal to the text, then the
+     * words starting with it, then the words sharing its stems.
+     *
+     * @param text the searched text; a trailing "*" is ignored, as prefixes are always matched
+     * @return the query
+     */
+    public static QueryBuilder textQuery(String text) {
+        String terms = stripWildcards(text.trim()).trim();
+        BoolQueryBuilder query = boolQuery()
+            .should(multiMatchQuery(terms, "rus.keyword", "en.keyword").boost(EXACT_BOOST))
+            .should(multiMatchQuery(terms, "rus.prefix", "en.prefix").operator(MatchQueryBuilder.Operator.AND).boost(PREFIX_BOOST))
+            .should(multiMatchQuery(terms, "rus", "en", "definition", "category.rus", "category.en"));
+        // The stems computed by the application still match the headwords of inflected forms the analyzers miss
+        String rusStem = TermStemmer.stem(Language.RU, terms);
+        if (rusStem != null) {
+            query.should(matchQuery("rusStem", rusStem));
+        }
+        String enStem = TermStemmer.stem(Language.EN, terms);
+        if (enStem != null) {
+            query.should(matchQuery("enStem", enStem));
+        }
+        return query;
+    }
+
+    /**
+     * Build the query finding the words whose term matches the given one, optionally restricted to a category.
+     * Each match mode compiles to a single cheap query type, and the category is a cached filter that does not score.
+     *
+     * @param term the searched term
+     * @param language the language of the term, or null to search both languages
+     * @param categoryId the id of the category of the words, or null for any category
+     * @param mode how the term is matched
+     * @return the query
+     */
+    public static QueryBuilder structuredQuery(String term, Language language, Long categoryId, MatchMode mode) {
+        String[] fields = language == null ? new String[]{"rus", "en"} : new String[]{field(language)};
+        QueryBuilder query;
+        switch (mode) {
+            case EXACT:
+                query = multiMatchQuery(term, suffix(fields, ".keyword"));
+                break;
+            case PREFIX:
+                query = multiMatchQuery(term, suffix(fields, ".prefix")).operator(MatchQueryBuilder.Operator.AND);
+                break;
+            default:
+                query = multiMatchQuery(term, fields).operator(MatchQueryBuilder.Operator.AND);
+        }
+        if (categoryId == null) {
+            return query;
+        }
+        return boolQuery().must(query).filter(termQuery("category.id", categoryId));
+    }
+
+    private static String stripWildcards(String text) {
+        String stripped = text;
+        while (stripped.endsWith("*")) {
+            stripped = stripped.substring(0, stripped.length() - 1);
+        }
+        return stripped;
+    }
+
+    private static String field(Language language) {
+        return language == Language.RU ? "rus" : "en";
+    }
+
+    private static String[] suffix(String[] fields, String suffix) {
+        String[] subfields = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            subfields[i] = fields[i] + suffix;
+        }
+        return subfields;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.giylmi.dictionary.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.service.WordIndexService;
+import ru.giylmi.dictionary.service.dto.AnnotationDTO;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * REST controller for finding the dictionary terms of a text, from the in-memory word index.
+ */
+@RestController
+@RequestMapping("/api")
+public class AnnotationResource {
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson;charset=UTF-8";
+
+    private final Logger log = LoggerFactory.getLogger(AnnotationResource.class);
+
+    private final WordIndexService wordIndexService;
+
+    private final ObjectMapper objectMapper;
+
+    public AnnotationResource(WordIndexService wordIndexService, ObjectMapper objectMapper) {
+        this.wordIndexService = wordIndexService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * POST  /annotate : find every Russian or English term of the dictionary occurring in the posted text.
+     * The text is read chunk by chunk, and the terms found in each chunk are streamed back before the next one is read,
+     * one JSON object per line with the offsets of the term in the text, its language and the words carrying it.
+     *
+     * @param request the request, whose plain text or HTML body is annotated, UTF-8 unless another charset is given
+     * @param response the response the terms are streamed to, with status 200 (OK)
+     * @throws IOException if the text could not be read or the response could not be written
+     */
+    @PostMapping(value = "/annotate", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.TEXT_HTML_VALUE})
+    @Timed
+    public void annotate(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean html = MediaType.TEXT_HTML.isCompatibleWith(MediaType.parseMediaType(request.getContentType()));
+        log.debug("REST request to annotate a {} text", html ? "HTML" : "plain");
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long count = wordIndexService.annotate(request.getReader(), html, annotations -> {
+                for (AnnotationDTO annotation : annotations) {
+                    writer.writeValue(generator, annotation);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                response.flushBuffer();
+            });
+            log.debug("Found {} terms", count);
+        }
+    }
+}
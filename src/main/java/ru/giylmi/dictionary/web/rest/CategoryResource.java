@@ -1,28 +1,42 @@
 package ru.giylmi.dictionary.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.config.ApplicationProperties;
 import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
 
 import ru.giylmi.dictionary.repository.CategoryRepository;
-import ru.giylmi.dictionary.repository.search.CategorySearchRepository;
+import ru.giylmi.dictionary.security.AuthoritiesConstants;
+import ru.giylmi.dictionary.security.SecurityUtils;
+import ru.giylmi.dictionary.service.CategoryListService;
+import ru.giylmi.dictionary.service.SearchBackend;
+import ru.giylmi.dictionary.service.SearchOutboxService;
+import ru.giylmi.dictionary.service.WordIndexService;
 import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
 import ru.giylmi.dictionary.service.dto.CategoryDTO;
 import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+import ru.giylmi.dictionary.service.util.WordQueryUtil;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.index.query.QueryBuilders.*;
+import static ru.giylmi.dictionary.service.util.TransactionUtil.afterCommit;
 
 /**
  * REST controller for managing Category.
@@ -39,12 +53,26 @@ public class CategoryResource {
 
     private final CategoryMapper categoryMapper;
 
-    private final CategorySearchRepository categorySearchRepository;
+    private final SearchBackend searchBackend;
 
-    public CategoryResource(CategoryRepository categoryRepository, CategoryMapper categoryMapper, CategorySearchRepository categorySearchRepository) {
+    private final WordIndexService wordIndexService;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final CategoryListService categoryListService;
+
+    private final ApplicationProperties.Search searchProperties;
+
+    public CategoryResource(CategoryRepository categoryRepository, CategoryMapper categoryMapper, SearchBackend searchBackend,
+                            WordIndexService wordIndexService, SearchOutboxService searchOutboxService,
+                            CategoryListService categoryListService, ApplicationProperties applicationProperties) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
-        this.categorySearchRepository = categorySearchRepository;
+        this.searchBackend = searchBackend;
+        this.wordIndexService = wordIndexService;
+        this.searchOutboxService = searchOutboxService;
+        this.categoryListService = categoryListService;
+        this.searchProperties = applicationProperties.getSearch();
     }
 
     /**
@@ -56,6 +84,7 @@ public class CategoryResource {
      */
     @PostMapping("/categories")
     @Timed
+    @Transactional
     public ResponseEntity<CategoryDTO> createCategory(@RequestBody CategoryDTO categoryDTO) throws URISyntaxException {
         log.debug("REST request to save Category : {}", categoryDTO);
         if (categoryDTO.getId() != null) {
@@ -64,7 +93,8 @@ public class CategoryResource {
         Category category = categoryMapper.toEntity(categoryDTO);
         category = categoryRepository.save(category);
         CategoryDTO result = categoryMapper.toDto(category);
-        categorySearchRepository.save(category);
+        searchOutboxService.enqueue(EntityType.CATEGORY, category.getId());
+        afterCommit(() -> wordIndexService.indexCategory(result));
         return ResponseEntity.created(new URI("/api/categories/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -81,6 +111,7 @@ public class CategoryResource {
      */
     @PutMapping("/categories")
     @Timed
+    @Transactional
     public ResponseEntity<CategoryDTO> updateCategory(@RequestBody CategoryDTO categoryDTO) throws URISyntaxException {
         log.debug("REST request to update Category : {}", categoryDTO);
         if (categoryDTO.getId() == null) {
@@ -89,7 +120,8 @@ public class CategoryResource {
         Category category = categoryMapper.toEntity(categoryDTO);
         category = categoryRepository.save(category);
         CategoryDTO result = categoryMapper.toDto(category);
-        categorySearchRepository.save(category);
+        searchOutboxService.enqueue(EntityType.CATEGORY, category.getId());
+        afterCommit(() -> wordIndexService.indexCategory(result));
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, categoryDTO.getId().toString()))
             .body(result);
@@ -97,15 +129,25 @@ public class CategoryResource {
 
     /**
      * GET  /categories : get all the categories.
+     * The list is served already serialized, with an ETag the clients can send back in an If-None-Match header.
      *
-     * @return the ResponseEntity with status 200 (OK) and the list of categories in body
+     * @param request the request, checked against the ETag of the list
+     * @param response the response, with status 200 (OK) and the list of categories in body,
+     * or with status 304 (Not Modified) if the list has the ETag sent by the client
+     * @throws IOException if the response could not be written
      */
     @GetMapping("/categories")
     @Timed
-    public List<CategoryDTO> getAllCategories() {
+    public void getAllCategories(ServletWebRequest request, HttpServletResponse response) throws IOException {
         log.debug("REST request to get all Categories");
-        List<Category> categories = categoryRepository.findAll();
-        return categoryMapper.toDto(categories);
+        CategoryListService.SerializedCategories categories = categoryListService.getAll();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (request.checkNotModified(categories.getETag())) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        response.setContentLength(categories.getBody().length);
+        response.getOutputStream().write(categories.getBody());
     }
 
     /**
@@ -131,29 +173,40 @@ public class CategoryResource {
      */
     @DeleteMapping("/categories/{id}")
     @Timed
+    @Transactional
     public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
         log.debug("REST request to delete Category : {}", id);
         categoryRepository.delete(id);
-        categorySearchRepository.delete(id);
+        searchOutboxService.enqueueDeletion(EntityType.CATEGORY, id);
+        afterCommit(() -> wordIndexService.removeCategory(id));
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
      * SEARCH  /_search/categories?query=:query : search for the category corresponding
-     * to the query.
+     * to the query. Queries explicitly using the query string syntax are parsed as such for administrators only,
+     * other queries are searched as plain text, punctuation included.
      *
      * @param query the query of the category search 
-     * @return the result of the search
+     * @return the ResponseEntity with status 200 (OK) and the first categories found in body,
+     * or with status 400 (Bad Request) if the query is too long,
+     * or with status 403 (Forbidden) if a query string is sent by a user who is not an administrator
      */
     @GetMapping("/_search/categories")
     @Timed
-    public List<CategoryDTO> searchCategories(@RequestParam String query) {
+    public ResponseEntity<List<CategoryDTO>> searchCategories(@RequestParam String query) {
         log.debug("REST request to search Categories for query {}", query);
-        return StreamSupport
-            .stream(categorySearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .map(categoryMapper::toDto)
-            .collect(Collectors.toList());
+        boolean queryString = WordQueryUtil.isQueryString(query);
+        if (queryString && !SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "querystringforbidden", "Query strings are reserved to administrators"))
+                .body(null);
+        }
+        if (query.length() > searchProperties.getMaxTermLength()) {
+            return ResponseEntity.badRequest()
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "searchlimit", "The query is longer than " + searchProperties.getMaxTermLength() + " characters"))
+                .body(null);
+        }
+        return ResponseEntity.ok(searchBackend.searchCategories(query, queryString, searchProperties.getMaxPageSize()));
     }
-
-
 }
@@ -4,9 +4,14 @@ import com.codahale.metrics.annotation.Timed;
 import ru.giylmi.dictionary.security.AuthoritiesConstants;
 import ru.giylmi.dictionary.security.SecurityUtils;
 import ru.giylmi.dictionary.service.ElasticsearchIndexService;
+import ru.giylmi.dictionary.service.SearchBackend;
+import ru.giylmi.dictionary.service.SearchConsistencyService;
+import ru.giylmi.dictionary.service.dto.ReindexStatusDTO;
+import ru.giylmi.dictionary.service.dto.SearchConsistencyDTO;
 import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -15,9 +20,16 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * REST controller for managing Elasticsearch index.
+ *
+ * <p>
+ * With the "lucene" profile, the full reindex rebuilds the local word index, and the Elasticsearch only endpoints
+ * answer 404 (Not Found).
+ * </p>
  */
 @RestController
 @RequestMapping("/api")
@@ -25,10 +37,18 @@ public class ElasticsearchIndexResource {
 
     private final Logger log = LoggerFactory.getLogger(ElasticsearchIndexResource.class);
 
+    private final SearchBackend searchBackend;
+
     private final ElasticsearchIndexService elasticsearchIndexService;
 
-    public ElasticsearchIndexResource(ElasticsearchIndexService elasticsearchIndexService) {
-        this.elasticsearchIndexService = elasticsearchIndexService;
+    private final SearchConsistencyService searchConsistencyService;
+
+    public ElasticsearchIndexResource(SearchBackend searchBackend,
+                                      Optional<ElasticsearchIndexService> elasticsearchIndexService,
+                                      Optional<SearchConsistencyService> searchConsistencyService) {
+        this.searchBackend = searchBackend;
+        this.elasticsearchIndexService = elasticsearchIndexService.orElse(null);
+        this.searchConsistencyService = searchConsistencyService.orElse(null);
     }
 
     /**
@@ -41,9 +61,83 @@ public class ElasticsearchIndexResource {
     @PreAuthorize("hasAuthority('" + AuthoritiesConstants.ADMIN + "')")
     public ResponseEntity<Void> reindexAll() throws URISyntaxException {
         log.info("REST request to reindex Elasticsearch by user : {}", SecurityUtils.getCurrentUserLogin());
-        elasticsearchIndexService.reindexAll();
+        searchBackend.reindexAll();
+        return ResponseEntity.accepted()
+            .headers(HeaderUtil.createAlert("elasticsearch.reindex.accepted", null))
+            .build();
+    }
+
+    /**
+     * POST  /elasticsearch/index/incremental -> Send the changes to words and categories made since the last reindex
+     */
+    @RequestMapping(value = "/elasticsearch/index/incremental",
+        method = RequestMethod.POST,
+        produces = MediaType.TEXT_PLAIN_VALUE)
+    @Timed
+    @PreAuthorize("hasAuthority('" + AuthoritiesConstants.ADMIN + "')")
+    public ResponseEntity<Void> reindexIncremental() {
+        log.info("REST request to reindex Elasticsearch incrementally by user : {}", SecurityUtils.getCurrentUserLogin());
+        if (elasticsearchIndexService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        elasticsearchIndexService.reindexIncremental();
         return ResponseEntity.accepted()
             .headers(HeaderUtil.createAlert("elasticsearch.reindex.accepted", null))
             .build();
     }
+
+    /**
+     * GET  /elasticsearch/index/status -> Get the progress of the running or last reindex of each entity
+     */
+    @RequestMapping(value = "/elasticsearch/index/status",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    @PreAuthorize("hasAuthority('" + AuthoritiesConstants.ADMIN + "')")
+    public List<ReindexStatusDTO> getReindexStatus() {
+        log.debug("REST request to get the Elasticsearch reindex status");
+        return searchBackend.getReindexStatus();
+    }
+
+    /**
+     * POST  /elasticsearch/consistency -> Compare the database with the Elasticsearch documents and repair the drift,
+     * or answer 409 (Conflict) if a check or a reindex is already running
+     */
+    @RequestMapping(value = "/elasticsearch/consistency",
+        method = RequestMethod.POST,
+        produces = MediaType.TEXT_PLAIN_VALUE)
+    @Timed
+    @PreAuthorize("hasAuthority('" + AuthoritiesConstants.ADMIN + "')")
+    public ResponseEntity<Void> checkConsistency() {
+        log.info("REST request to check the Elasticsearch consistency by user : {}", SecurityUtils.getCurrentUserLogin());
+        if (searchConsistencyService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (searchConsistencyService.isBusy()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .headers(HeaderUtil.createFailureAlert("elasticsearch", "consistencyrunning",
+                    "A consistency check or a reindex is already running"))
+                .build();
+        }
+        searchConsistencyService.checkInBackground();
+        return ResponseEntity.accepted()
+            .headers(HeaderUtil.createAlert("elasticsearch.consistency.accepted", null))
+            .build();
+    }
+
+    /**
+     * GET  /elasticsearch/consistency -> Get the result of the running or last consistency check of each entity
+     */
+    @RequestMapping(value = "/elasticsearch/consistency",
+        method = RequestMethod.GET,
+        produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed
+    @PreAuthorize("hasAuthority('" + AuthoritiesConstants.ADMIN + "')")
+    public ResponseEntity<List<SearchConsistencyDTO>> getConsistencyStatus() {
+        log.debug("REST request to get the Elasticsearch consistency status");
+        if (searchConsistencyService == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(searchConsistencyService.getStatus());
+    }
 }
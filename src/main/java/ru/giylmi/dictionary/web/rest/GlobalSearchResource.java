@@ -0,0 +1,70 @@
+package ru.giylmi.dictionary.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.security.AuthoritiesConstants;
+import ru.giylmi.dictionary.security.SecurityUtils;
+import ru.giylmi.dictionary.service.GlobalSearchService;
+import ru.giylmi.dictionary.service.dto.GlobalSearchResultDTO;
+import ru.giylmi.dictionary.service.util.WordQueryUtil;
+import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for searching the words, the categories and the users at once.
+ */
+@RestController
+@RequestMapping("/api")
+public class GlobalSearchResource {
+
+    private final Logger log = LoggerFactory.getLogger(GlobalSearchResource.class);
+
+    private static final String ENTITY_NAME = "search";
+
+    private final GlobalSearchService globalSearchService;
+
+    public GlobalSearchResource(GlobalSearchService globalSearchService) {
+        this.globalSearchService = globalSearchService;
+    }
+
+    /**
+     * SEARCH  /_search/all?query=:query&size=:size : search for the words, the categories and the users corresponding
+     * to the query, in a single Elasticsearch request. The users are only searched for administrators, and queries
+     * explicitly using the query string syntax are parsed as such for administrators only, other queries are
+     * searched as plain text, punctuation included.
+     *
+     * @param query the query of the search
+     * @param size the maximum number of hits of each kind
+     * @return the ResponseEntity with status 200 (OK) and in body the first hits of each kind with their totals,
+     * or with status 400 (Bad Request) if the query or the size exceed the search limits,
+     * or with status 403 (Forbidden) if a query string is sent by a user who is not an administrator,
+     * or with status 503 (Service Unavailable) if Elasticsearch is unavailable
+     */
+    @GetMapping("/_search/all")
+    @Timed
+    public ResponseEntity<GlobalSearchResultDTO> searchAll(@RequestParam String query, @RequestParam(defaultValue = "5") int size) {
+        log.debug("REST request to search everything for query {}", query);
+        boolean admin = SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN);
+        boolean queryString = WordQueryUtil.isQueryString(query);
+        if (queryString && !admin) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "querystringforbidden", "Query strings are reserved to administrators"))
+                .body(null);
+        }
+        GlobalSearchResultDTO result;
+        try {
+            result = globalSearchService.search(query, queryString, admin, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "searchlimit", e.getMessage())).body(null);
+        }
+        if (result == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "searchunavailable", "Elasticsearch is unavailable"))
+                .body(null);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.giylmi.dictionary.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.service.WordIndexService;
+import ru.giylmi.dictionary.service.dto.TranslationDTO;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.index.LanguageIndex;
+import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
+import ru.giylmi.dictionary.web.rest.vm.TranslationBatchVM;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * REST controller for translating dictionary terms from the in-memory word index.
+ */
+@RestController
+@RequestMapping("/api")
+public class TranslationResource {
+
+    private final Logger log = LoggerFactory.getLogger(TranslationResource.class);
+
+    private static final String ENTITY_NAME = "translation";
+
+    private final WordIndexService wordIndexService;
+
+    public TranslationResource(WordIndexService wordIndexService) {
+        this.wordIndexService = wordIndexService;
+    }
+
+    /**
+     * GET  /translate?from=:from&term=:term : get the words whose term in the "from" language exactly matches "term".
+     * When none does, the closest terms are listed as "did you mean" suggestions.
+     *
+     * @param from the language of the term, "ru" or "en"
+     * @param term the term to translate
+     * @param maxDistance the maximum edit distance of the suggestions, from 0 (disabled) to 2
+     * @return the ResponseEntity with status 200 (OK) and the translation in body,
+     * or with status 400 (Bad Request) if the language is unknown
+     */
+    @GetMapping("/translate")
+    @Timed
+    public ResponseEntity<TranslationDTO> translate(@RequestParam String from, @RequestParam String term,
+                                                    @RequestParam(defaultValue = "2") int maxDistance) {
+        log.debug("REST request to translate {} term : {}", from, term);
+        Language language = Language.fromCode(from);
+        if (language == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "unknownlanguage", "Unknown language " + from)).body(null);
+        }
+        int distance = Math.max(0, Math.min(maxDistance, LanguageIndex.MAX_FUZZY_DISTANCE));
+        return ResponseEntity.ok(wordIndexService.translate(language, term, distance));
+    }
+
+    /**
+     * POST  /translate/batch : translate many terms in one request, from the same language.
+     * Each term is matched like a single translation, without the "did you mean" suggestions.
+     *
+     * @param batch the language of the terms and the terms, at most 10000
+     * @return the ResponseEntity with status 200 (OK) and the translations in the order of the terms in body,
+     * each flagged as found or not, or with status 400 (Bad Request) if the language is unknown or there are too many terms
+     */
+    @PostMapping("/translate/batch")
+    @Timed
+    public ResponseEntity<List<TranslationDTO>> translateBatch(@Valid @RequestBody TranslationBatchVM batch) {
+        log.debug("REST request to translate {} {} terms", batch.getTerms().size(), batch.getFrom());
+        Language language = Language.fromCode(batch.getFrom());
+        if (language == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "unknownlanguage", "Unknown language " + batch.getFrom())).body(null);
+        }
+        return ResponseEntity.ok(wordIndexService.translateAll(language, batch.getTerms()));
+    }
+}
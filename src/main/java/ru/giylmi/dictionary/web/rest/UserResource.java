@@ -4,9 +4,9 @@ import ru.giylmi.dictionary.config.Constants;
 import com.codahale.metrics.annotation.Timed;
 import ru.giylmi.dictionary.domain.User;
 import ru.giylmi.dictionary.repository.UserRepository;
-import ru.giylmi.dictionary.repository.search.UserSearchRepository;
 import ru.giylmi.dictionary.security.AuthoritiesConstants;
 import ru.giylmi.dictionary.service.MailService;
+import ru.giylmi.dictionary.service.SearchBackend;
 import ru.giylmi.dictionary.service.UserService;
 import ru.giylmi.dictionary.service.dto.UserDTO;
 import ru.giylmi.dictionary.web.rest.vm.ManagedUserVM;
@@ -29,10 +29,6 @@ import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
-
-import static org.elasticsearch.index.query.QueryBuilders.*;
 
 /**
  * REST controller for managing users.
@@ -72,15 +68,15 @@ public class UserResource {
 
     private final UserService userService;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchBackend searchBackend;
 
     public UserResource(UserRepository userRepository, MailService mailService,
-            UserService userService, UserSearchRepository userSearchRepository) {
+            UserService userService, SearchBackend searchBackend) {
 
         this.userRepository = userRepository;
         this.mailService = mailService;
         this.userService = userService;
-        this.userSearchRepository = userSearchRepository;
+        this.searchBackend = searchBackend;
     }
 
     /**
@@ -214,8 +210,6 @@ public class UserResource {
     @GetMapping("/_search/users/{query}")
     @Timed
     public List<User> search(@PathVariable String query) {
-        return StreamSupport
-            .stream(userSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+        return searchBackend.searchUsers(query);
     }
 }
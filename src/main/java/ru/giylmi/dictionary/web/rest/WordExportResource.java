@@ -0,0 +1,59 @@
+package ru.giylmi.dictionary.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.service.WordExportService;
+import ru.giylmi.dictionary.service.WordFileFormat;
+import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * REST controller for exporting the Words.
+ */
+@RestController
+@RequestMapping("/api")
+public class WordExportResource {
+
+    private final Logger log = LoggerFactory.getLogger(WordExportResource.class);
+
+    private static final String ENTITY_NAME = "word";
+
+    private final WordExportService wordExportService;
+
+    public WordExportResource(WordExportService wordExportService) {
+        this.wordExportService = wordExportService;
+    }
+
+    /**
+     * GET  /words/export?format=:format&category=:category : stream all the words, or the words of a category.
+     *
+     * @param format the export format, "ndjson" (one word per line) or "csv"
+     * @param category the id of the category to export, all the words are exported if missing
+     * @param response the response the words are streamed to, with status 200 (OK),
+     * or with status 400 (Bad Request) if the format is unknown
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping("/words/export")
+    @Timed
+    public void exportWords(@RequestParam(defaultValue = "ndjson") String format,
+                            @RequestParam(required = false) Long category,
+                            HttpServletResponse response) throws IOException {
+        log.debug("REST request to export Words as {} for category {}", format, category);
+        WordFileFormat exportFormat = WordFileFormat.fromCode(format);
+        if (exportFormat == null) {
+            HeaderUtil.createFailureAlert(ENTITY_NAME, "unknownformat", "Unknown export format " + format)
+                .forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"words." + exportFormat.getCode() + "\"");
+        long count = wordExportService.export(exportFormat, category, response.getOutputStream());
+        log.debug("Exported {} Words", count);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.giylmi.dictionary.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.service.WordFileFormat;
+import ru.giylmi.dictionary.service.WordImportService;
+import ru.giylmi.dictionary.service.dto.WordImportReportDTO;
+import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * REST controller for importing Words in bulk.
+ */
+@RestController
+@RequestMapping("/api")
+public class WordImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(WordImportResource.class);
+
+    private static final String ENTITY_NAME = "word";
+
+    private final WordImportService wordImportService;
+
+    public WordImportResource(WordImportService wordImportService) {
+        this.wordImportService = wordImportService;
+    }
+
+    /**
+     * POST  /words/import?format=:format&batchSize=:batchSize : create the words read from the request body,
+     * which is streamed rather than read at once.
+     *
+     * @param format the import format, "ndjson" (one word per line) or "csv" (with a header)
+     * @param batchSize the number of words written at once, the configured size is used if missing
+     * @param request the request holding the words
+     * @return the ResponseEntity with status 200 (OK) and the import report in body,
+     * or with status 400 (Bad Request) if the format is unknown
+     * @throws IOException if the request could not be read
+     */
+    @PostMapping("/words/import")
+    @Timed
+    public ResponseEntity<WordImportReportDTO> importWords(@RequestParam(defaultValue = "ndjson") String format,
+                                                           @RequestParam(required = false) Integer batchSize,
+                                                           HttpServletRequest request) throws IOException {
+        log.debug("REST request to import Words as {}", format);
+        WordFileFormat importFormat = WordFileFormat.fromCode(format);
+        if (importFormat == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "unknownformat", "Unknown import format " + format)).body(null);
+        }
+        WordImportReportDTO report = wordImportService.importWords(importFormat, request.getInputStream(), batchSize);
+        return ResponseEntity.ok(report);
+    }
+}
@@ -1,34 +1,53 @@
 package ru.giylmi.dictionary.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
 import ru.giylmi.dictionary.domain.Word;
 
 import ru.giylmi.dictionary.repository.WordRepository;
-import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import ru.giylmi.dictionary.security.AuthoritiesConstants;
+import ru.giylmi.dictionary.security.SecurityUtils;
+import ru.giylmi.dictionary.service.SearchOutboxService;
+import ru.giylmi.dictionary.service.WordIndexService;
+import ru.giylmi.dictionary.service.WordSearchService;
 import ru.giylmi.dictionary.web.rest.util.HeaderUtil;
 import ru.giylmi.dictionary.web.rest.util.PaginationUtil;
+import ru.giylmi.dictionary.web.rest.util.WordCursor;
 import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.dto.WordSearchPage;
+import ru.giylmi.dictionary.service.dto.WordSearchResultDTO;
+import ru.giylmi.dictionary.service.dto.WordSearchSlice;
+import ru.giylmi.dictionary.service.dto.WordSuggestionsDTO;
+import ru.giylmi.dictionary.service.index.Language;
 import ru.giylmi.dictionary.service.mapper.WordMapper;
+import ru.giylmi.dictionary.service.util.WordQueryUtil;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
 import io.swagger.annotations.ApiParam;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.index.query.QueryBuilders.*;
+import static ru.giylmi.dictionary.service.util.TransactionUtil.afterCommit;
+
 
 /**
  * REST controller for managing Word.
@@ -40,17 +59,26 @@ public class WordResource {
     private final Logger log = LoggerFactory.getLogger(WordResource.class);
 
     private static final String ENTITY_NAME = "word";
+
+    private static final int MAX_SUGGESTIONS = 50;
         
     private final WordRepository wordRepository;
 
     private final WordMapper wordMapper;
 
-    private final WordSearchRepository wordSearchRepository;
+    private final WordSearchService wordSearchService;
+
+    private final WordIndexService wordIndexService;
+
+    private final SearchOutboxService searchOutboxService;
 
-    public WordResource(WordRepository wordRepository, WordMapper wordMapper, WordSearchRepository wordSearchRepository) {
+    public WordResource(WordRepository wordRepository, WordMapper wordMapper, WordSearchService wordSearchService,
+                        WordIndexService wordIndexService, SearchOutboxService searchOutboxService) {
         this.wordRepository = wordRepository;
         this.wordMapper = wordMapper;
-        this.wordSearchRepository = wordSearchRepository;
+        this.wordSearchService = wordSearchService;
+        this.wordIndexService = wordIndexService;
+        this.searchOutboxService = searchOutboxService;
     }
 
     /**
@@ -62,6 +90,7 @@ public class WordResource {
      */
     @PostMapping("/words")
     @Timed
+    @Transactional
     public ResponseEntity<WordDTO> createWord(@RequestBody WordDTO wordDTO) throws URISyntaxException {
         log.debug("REST request to save Word : {}", wordDTO);
         if (wordDTO.getId() != null) {
@@ -70,7 +99,8 @@ public class WordResource {
         Word word = wordMapper.toEntity(wordDTO);
         word = wordRepository.save(word);
         WordDTO result = wordMapper.toDto(word);
-        wordSearchRepository.save(word);
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+        afterCommit(() -> wordIndexService.index(result));
         return ResponseEntity.created(new URI("/api/words/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -87,6 +117,7 @@ public class WordResource {
      */
     @PutMapping("/words")
     @Timed
+    @Transactional
     public ResponseEntity<WordDTO> updateWord(@RequestBody WordDTO wordDTO) throws URISyntaxException {
         log.debug("REST request to update Word : {}", wordDTO);
         if (wordDTO.getId() == null) {
@@ -95,7 +126,8 @@ public class WordResource {
         Word word = wordMapper.toEntity(wordDTO);
         word = wordRepository.save(word);
         WordDTO result = wordMapper.toDto(word);
-        wordSearchRepository.save(word);
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+        afterCommit(() -> wordIndexService.index(result));
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, wordDTO.getId().toString()))
             .body(result);
@@ -104,16 +136,27 @@ public class WordResource {
     /**
      * GET  /words : get all the words.
      *
+     * <p>
+     * With the "after" parameter, the page is read from a cursor instead of a page number: an empty cursor starts at
+     * the first word, sorted ascending by the id, "rus" or "en" sort property, and the "next" link of each page holds
+     * the cursor of the following one. Cursor pages have no total count.
+     * </p>
+     *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of words in body
+     * @param after the cursor returned in the "next" link of the previous page, empty for the first page
+     * @return the ResponseEntity with status 200 (OK) and the list of words in body,
+     * or with status 400 (Bad Request) if the cursor is malformed
      */
     @GetMapping("/words")
     @Timed
-    public ResponseEntity<List<WordDTO>> getAllWords(@ApiParam Pageable pageable) {
+    public ResponseEntity<List<WordDTO>> getAllWords(@ApiParam Pageable pageable, @RequestParam(required = false) String after) {
         log.debug("REST request to get a page of Words");
-        Page<Word> page = wordRepository.findAll(pageable);
+        if (after != null) {
+            return getWordsAfter(pageable, after);
+        }
+        Page<WordDTO> page = wordRepository.findAllAsDto(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/words");
-        return new ResponseEntity<>(wordMapper.toDto(page.getContent()), headers, HttpStatus.OK);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
     /**
@@ -126,9 +169,9 @@ public class WordResource {
     @Timed
     public ResponseEntity<WordDTO> getWord(@PathVariable Long id) {
         log.debug("REST request to get Word : {}", id);
+        // The entity is loaded rather than projected, so that it and its category are read from the second-level cache
         Word word = wordRepository.findOne(id);
-        WordDTO wordDTO = wordMapper.toDto(word);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(wordDTO));
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(wordMapper.toDto(word)));
     }
 
     /**
@@ -139,29 +182,238 @@ public class WordResource {
      */
     @DeleteMapping("/words/{id}")
     @Timed
+    @Transactional
     public ResponseEntity<Void> deleteWord(@PathVariable Long id) {
         log.debug("REST request to delete Word : {}", id);
         wordRepository.delete(id);
-        wordSearchRepository.delete(id);
+        searchOutboxService.enqueueDeletion(EntityType.WORD, id);
+        afterCommit(() -> wordIndexService.remove(id));
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
      * SEARCH  /_search/words?query=:query : search for the word corresponding
-     * to the query.
+     * to the query. Exact matches come first, then the words starting with the query, then the words
+     * whose stems match the stemmed query, so that inflected forms find their headword. Queries explicitly using
+     * the query string syntax ("rus:дом*") are parsed as such for administrators only; punctuation alone ("what?")
+     * does not make a query string, and is searched as plain text.
+     *
+     * <p>
+     * With the "after" parameter, the page is read from a cursor instead of a page number, for walking deep into
+     * the hits: an empty cursor starts at the best match, and the "next" link of each page holds the cursor of the
+     * following one. Cursor pages have no total count, are never served by the in-memory word index, and their
+     * cursor expires when it is not followed within the cursor keep-alive. As each cursor holds resources in
+     * Elasticsearch, cursors are reserved to administrators, and only a bounded number of them are open at once.
+     * </p>
      *
      * @param query the query of the word search 
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the "next" link of the previous page, empty for the first page
+     * @return the result of the search, or with status 400 (Bad Request) if the query or the page exceed
+     * the search limits or if the cursor is malformed or has expired, or with status 403 (Forbidden) if a query string or a cursor is sent by a user who is not an administrator,
+     * or with status 429 (Too Many Requests) if too many cursors are open,
+     * or with status 503 (Service Unavailable) if a query string or a cursor is sent while Elasticsearch is unavailable
      */
     @GetMapping("/_search/words")
     @Timed
-    public ResponseEntity<List<WordDTO>> searchWords(@RequestParam String query, @ApiParam Pageable pageable) {
+    public ResponseEntity<List<WordDTO>> searchWords(@RequestParam String query, @ApiParam Pageable pageable,
+                                                     @RequestParam(required = false) String after) {
         log.debug("REST request to search for a page of Words for query {}", query);
-        Page<Word> page = wordSearchRepository.search(queryStringQuery(query), pageable);
-        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/words");
-        return new ResponseEntity<>(wordMapper.toDto(page.getContent()), headers, HttpStatus.OK);
+        if (after != null) {
+            return searchWordsAfter(query, pageable.getPageSize(), after);
+        }
+        ResponseEntity<WordSearchPage> response = searchWordsPage(query, pageable, false);
+        return new ResponseEntity<>(response.hasBody() ? response.getBody().getContent() : null,
+            response.getHeaders(), response.getStatusCode());
     }
 
+    /**
+     * SEARCH  /_search/words?query=:query&facets=true : search for the words corresponding to the query, like
+     * without facets, and count the hits in each category within the same search.
+     *
+     * @param query the query of the word search
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and in body the page of words with the categories of the hits,
+     * by decreasing number of hits, or with the statuses of the search without facets. When the words are served by
+     * the in-memory word index, the categories are not counted and their list is empty.
+     */
+    @GetMapping(value = "/_search/words", params = {"query", "facets=true"})
+    @Timed
+    public ResponseEntity<WordSearchResultDTO> searchWordsWithFacets(@RequestParam String query, @ApiParam Pageable pageable) {
+        log.debug("REST request to search for a page of Words with facets for query {}", query);
+        ResponseEntity<WordSearchPage> response = searchWordsPage(query, pageable, true);
+        WordSearchResultDTO result = response.hasBody()
+            ? new WordSearchResultDTO(response.getBody().getContent(), response.getBody().getFacets()) : null;
+        return new ResponseEntity<>(result, response.getHeaders(), response.getStatusCode());
+    }
 
+    /**
+     * SEARCH  /_search/words?term=:term&lang=:lang&category=:category&mode=:mode : search for the words whose term
+     * matches the given one.
+     *
+     * @param term the searched term
+     * @param lang the language of the term, "ru" or "en", both languages are searched if missing
+     * @param category the id of the category of the words, words of any category are found if missing
+     * @param mode how the term is matched: "exact", "prefix" or "match" (the words sharing its stems)
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of words in body, flagged by a degraded header
+     * when served by the in-memory word index, or with status 400 (Bad Request) if the language or the mode is unknown,
+     * or if the term or the page exceed the search limits
+     */
+    @GetMapping(value = "/_search/words", params = "term")
+    @Timed
+    public ResponseEntity<List<WordDTO>> searchWordsByTerm(@RequestParam String term,
+                                                           @RequestParam(required = false) String lang,
+                                                           @RequestParam(required = false) Long category,
+                                                           @RequestParam(defaultValue = "match") String mode,
+                                                           @ApiParam Pageable pageable) {
+        log.debug("REST request to search for a page of Words for {} term {} in category {} with {} match", lang, term, category, mode);
+        Language language = Language.fromCode(lang);
+        if (lang != null && language == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "unknownlanguage", "Unknown language " + lang)).body(null);
+        }
+        MatchMode matchMode = MatchMode.fromCode(mode);
+        if (matchMode == null) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "unknownmode", "Unknown match mode " + mode)).body(null);
+        }
+        WordSearchPage page;
+        try {
+            page = wordSearchService.search(term, language, category, matchMode, pageable);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "searchlimit", e.getMessage())).body(null);
+        }
+        UriComponentsBuilder baseUrl = UriComponentsBuilder.fromPath("/api/_search/words")
+            .queryParam("term", term.replace(",", "%2C"))
+            .queryParam("mode", matchMode.getCode());
+        if (language != null) {
+            baseUrl.queryParam("lang", language.getCode());
+        }
+        if (category != null) {
+            baseUrl.queryParam("category", category);
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, baseUrl.build().toUriString());
+        addDegradedAlert(page, headers);
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * SUGGEST  /_suggest/words?prefix=:prefix : complete a typed prefix against the russian and english terms
+     * of the in-memory word index.
+     *
+     * @param prefix the typed prefix
+     * @param size the maximum number of suggestions per language, at most 50
+     * @return the suggestions grouped by language
+     */
+    @GetMapping("/_suggest/words")
+    @Timed
+    public WordSuggestionsDTO suggestWords(@RequestParam String prefix, @RequestParam(defaultValue = "10") int size) {
+        log.debug("REST request to suggest Words for prefix {}", prefix);
+        return wordIndexService.suggest(prefix, Math.min(size, MAX_SUGGESTIONS));
+    }
+
+    private ResponseEntity<WordSearchPage> searchWordsPage(String query, Pageable pageable, boolean facets) {
+        boolean queryString = WordQueryUtil.isQueryString(query);
+        if (queryString && !SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN)) {
+            return queryStringForbidden();
+        }
+        WordSearchPage page;
+        try {
+            page = queryString ? wordSearchService.searchQueryString(query, pageable, facets)
+                : wordSearchService.searchText(query, pageable, facets);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "searchlimit", e.getMessage())).body(null);
+        }
+        if (page == null) {
+            return searchUnavailable();
+        }
+        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page,
+            facets ? "/api/_search/words?facets=true" : "/api/_search/words");
+        addDegradedAlert(page, headers);
+        return new ResponseEntity<>(page, headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<List<WordDTO>> searchWordsAfter(String query, int size, String after) {
+        if (!SecurityUtils.isCurrentUserInRole(AuthoritiesConstants.ADMIN)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "cursorforbidden", "Search cursors are reserved to administrators"))
+                .body(null);
+        }
+        boolean queryString = WordQueryUtil.isQueryString(query);
+        WordSearchSlice slice;
+        try {
+            slice = queryString ? wordSearchService.searchQueryStringAfter(query, after, size) : wordSearchService.searchTextAfter(query, after, size);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, after.isEmpty() ? "searchlimit" : "badcursor", e.getMessage())).body(null);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "cursorlimit", e.getMessage())).body(null);
+        }
+        if (slice == null) {
+            return searchUnavailable();
+        }
+        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, slice.getNextCursor(), size, "/api/_search/words");
+        return new ResponseEntity<>(slice.getWords(), headers, HttpStatus.OK);
+    }
+
+    private static <T> ResponseEntity<T> queryStringForbidden() {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN)
+            .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "querystringforbidden", "Query strings are reserved to administrators"))
+            .body(null);
+    }
+
+    private static <T> ResponseEntity<T> searchUnavailable() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "searchunavailable", "Elasticsearch is unavailable"))
+            .body(null);
+    }
+
+    private static void addDegradedAlert(WordSearchPage page, HttpHeaders headers) {
+        if (page.isDegraded()) {
+            headers.putAll(HeaderUtil.createDegradedAlert("search.fallback"));
+        }
+    }
+
+    private ResponseEntity<List<WordDTO>> getWordsAfter(Pageable pageable, String after) {
+        WordCursor cursor;
+        if (after.isEmpty()) {
+            Sort.Order order = pageable.getSort() == null ? null : pageable.getSort().iterator().next();
+            cursor = WordCursor.first(WordCursor.Key.fromProperty(order == null ? null : order.getProperty()));
+        } else {
+            try {
+                cursor = WordCursor.decode(after);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "badcursor", "Malformed cursor")).body(null);
+            }
+        }
+        // One more word than the page size is read to know whether there is a next page
+        List<WordDTO> words = findWordsAfter(cursor, pageable.getPageSize() + 1);
+        String nextCursor = null;
+        if (words.size() > pageable.getPageSize()) {
+            words = words.subList(0, pageable.getPageSize());
+            nextCursor = WordCursor.after(cursor.getKey(), words.get(words.size() - 1)).encode();
+        }
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor, pageable.getPageSize(), "/api/words");
+        return new ResponseEntity<>(words, headers, HttpStatus.OK);
+    }
+
+    private List<WordDTO> findWordsAfter(WordCursor cursor, int limit) {
+        if (cursor.getKey() == WordCursor.Key.ID) {
+            return wordRepository.findAllAsDtoAfter(cursor.getId(), new PageRequest(0, limit));
+        }
+        boolean rus = cursor.getKey() == WordCursor.Key.RUS;
+        if (cursor.getValue() == null) {
+            return rus ? wordRepository.findAllAsDtoWithoutRusAfter(cursor.getId(), new PageRequest(0, limit))
+                : wordRepository.findAllAsDtoWithoutEnAfter(cursor.getId(), new PageRequest(0, limit));
+        }
+        List<WordDTO> words = new ArrayList<>(rus
+            ? wordRepository.findAllAsDtoByRusAfter(cursor.getValue(), cursor.getId(), new PageRequest(0, limit))
+            : wordRepository.findAllAsDtoByEnAfter(cursor.getValue(), cursor.getId(), new PageRequest(0, limit)));
+        if (words.size() < limit) {
+            // The words without the term follow the others
+            PageRequest rest = new PageRequest(0, limit - words.size());
+            words.addAll(rus ? wordRepository.findAllAsDtoWithoutRusAfter(Long.MIN_VALUE, rest)
+                : wordRepository.findAllAsDtoWithoutEnAfter(Long.MIN_VALUE, rest));
+        }
+        return words;
+    }
 }
@@ -41,4 +41,13 @@ public final class HeaderUtil {
         headers.add("X-dictionaryApp-params", entityName);
         return headers;
     }
+
+    /**
+     * Flag a response served in degraded mode, from a fallback rather than from its usual backend.
+     */
+    public static HttpHeaders createDegradedAlert(String reason) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-dictionaryApp-degraded", APPLICATION_NAME + "." + reason);
+        return headers;
+    }
 }
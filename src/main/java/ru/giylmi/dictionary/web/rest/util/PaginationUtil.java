@@ -39,6 +39,25 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the headers of a page read from a cursor. There is no total count, and the only link is the next one,
+     * present when there may be more elements.
+     *
+     * @param nextCursor the cursor of the next page, or null on the last page
+     * @param size the page size
+     * @param baseUrl the url of the resource
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(String nextCursor, int size, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            String link = "<" + UriComponentsBuilder.fromUriString(baseUrl).queryParam("after", nextCursor)
+                .queryParam("size", size).toUriString() + ">; rel=\"next\"";
+            headers.add(HttpHeaders.LINK, link);
+        }
+        return headers;
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
@@ -65,4 +84,18 @@ public final class PaginationUtil {
         headers.add(HttpHeaders.LINK, link);
         return headers;
     }
+
+    /**
+     * Generate the headers of a search page read from a cursor, whose next link repeats the query.
+     *
+     * @param query the search query
+     * @param nextCursor the cursor of the next page, or null on the last page
+     * @param size the page size
+     * @param baseUrl the url of the search resource
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateSearchPaginationHttpHeaders(String query, String nextCursor, int size, String baseUrl) {
+        String escapedQuery = query.replace(",", "%2C");
+        return generateCursorPaginationHttpHeaders(nextCursor, size, baseUrl + "?query=" + escapedQuery);
+    }
 }
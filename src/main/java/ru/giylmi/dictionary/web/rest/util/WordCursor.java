@@ -0,0 +1,121 @@
+package ru.giylmi.dictionary.web.rest.util;
+
+import ru.giylmi.dictionary.service.dto.WordDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the list of words sorted by a key, from which the next page is read.
+ *
+ * <p>
+ * Words are sorted by the key, then by id. When sorting by a term, the words without that term come last, in id
+ * order. Cursors are exchanged with clients as opaque URL-safe strings.
+ * </p>
+ */
+public final class WordCursor {
+
+    /**
+     * The keys words can be sorted by.
+     */
+    public enum Key {
+
+        ID("id"), RUS("rus"), EN("en");
+
+        private final String property;
+
+        Key(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        /**
+         * @param property the sorted property, or null
+         * @return the key of the property, ID if the property is null or not a key
+         */
+        public static Key fromProperty(String property) {
+            for (Key key : values()) {
+                if (key.property.equals(property)) {
+                    return key;
+                }
+            }
+            return ID;
+        }
+    }
+
+    private static final char SEPARATOR = ':';
+
+    private final Key key;
+
+    private final String value;
+
+    private final long id;
+
+    private WordCursor(Key key, String value, long id) {
+        this.key = key;
+        this.value = value;
+        this.id = id;
+    }
+
+    /**
+     * @param key the sort key
+     * @return the cursor positioned before the first word
+     */
+    public static WordCursor first(Key key) {
+        return new WordCursor(key, key == Key.ID ? null : "", Long.MIN_VALUE);
+    }
+
+    /**
+     * @param key the sort key
+     * @param word the last word of a page
+     * @return the cursor positioned after the word
+     */
+    public static WordCursor after(Key key, WordDTO word) {
+        String value = key == Key.RUS ? word.getRus() : key == Key.EN ? word.getEn() : null;
+        return new WordCursor(key, value, word.getId());
+    }
+
+    /**
+     * @param cursor a cursor returned by {@link #encode()}
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static WordCursor decode(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(String.valueOf(SEPARATOR), 3);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor);
+        }
+        Key key = Key.fromProperty(parts[0]);
+        if (!key.property.equals(parts[0]) || (key == Key.ID && parts.length > 2)) {
+            throw new IllegalArgumentException("Malformed cursor " + cursor);
+        }
+        return new WordCursor(key, parts.length > 2 ? parts[2] : null, Long.parseLong(parts[1]));
+    }
+
+    /**
+     * @return the cursor as an opaque URL-safe string
+     */
+    public String encode() {
+        String decoded = key.property + SEPARATOR + id + (value == null ? "" : SEPARATOR + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    /**
+     * @return the sort key value of the last read word, null when sorting by id or once the words without a term are reached
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public long getId() {
+        return id;
+    }
+}
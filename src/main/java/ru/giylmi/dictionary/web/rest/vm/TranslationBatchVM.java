@@ -0,0 +1,44 @@
+package ru.giylmi.dictionary.web.rest.vm;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * View Model object for a list of terms to translate at once.
+ */
+public class TranslationBatchVM {
+
+    public static final int MAX_TERMS = 10000;
+
+    @NotNull
+    private String from;
+
+    @NotNull
+    @Size(max = MAX_TERMS)
+    private List<String> terms;
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    public void setTerms(List<String> terms) {
+        this.terms = terms;
+    }
+
+    @Override
+    public String toString() {
+        return "TranslationBatchVM{" +
+            "from='" + from + '\'' +
+            ", terms=" + (terms == null ? null : terms.size()) +
+            '}';
+    }
+}
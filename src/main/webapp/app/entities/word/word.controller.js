@@ -18,6 +18,7 @@
         vm.itemsPerPage = paginationConstants.itemsPerPage;
         vm.clear = clear;
         vm.search = search;
+        vm.suggest = suggest;
         vm.loadAll = loadAll;
         vm.searchQuery = pagingParams.search;
         vm.currentSearch = pagingParams.search;
@@ -83,6 +84,18 @@
             vm.transition();
         }
 
+        function suggest(prefix) {
+            return WordSearch.suggest({prefix: prefix, size: 5}).$promise.then(function (suggestions) {
+                var terms = [];
+                suggestions.rus.concat(suggestions.en).forEach(function (suggestion) {
+                    if (terms.indexOf(suggestion.term) === -1) {
+                        terms.push(suggestion.term);
+                    }
+                });
+                return terms;
+            });
+        }
+
         function clear() {
             vm.links = null;
             vm.page = 1;
@@ -11,7 +11,8 @@
         var resourceUrl =  'api/_search/words/:id';
 
         return $resource(resourceUrl, {}, {
-            'query': { method: 'GET', isArray: true}
+            'query': { method: 'GET', isArray: true},
+            'suggest': { method: 'GET', url: 'api/_suggest/words'}
         });
     }
 })();
@@ -0,0 +1,173 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.config.ApplicationProperties;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.repository.SearchTombstoneRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.util.WordQueryUtil.MatchMode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the LuceneWordIndexService local word index.
+ *
+ * @see LuceneWordIndexService
+ */
+public class LuceneWordIndexServiceUnitTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LuceneWordIndexService luceneWordIndexService;
+
+    private WordRepository wordRepository;
+
+    private SearchTombstoneRepository searchTombstoneRepository;
+
+    @Before
+    public void setup() throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getLucene().setPath(folder.getRoot().getPath());
+        WordIndexService wordIndexService = new WordIndexService(null, null, null);
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setId(7L);
+        categoryDTO.setRus("Природа");
+        categoryDTO.setEn("Nature");
+        wordIndexService.indexCategory(categoryDTO);
+
+        wordRepository = mock(WordRepository.class);
+        searchTombstoneRepository = mock(SearchTombstoneRepository.class);
+        luceneWordIndexService = new LuceneWordIndexService(wordRepository, searchTombstoneRepository, wordIndexService,
+            applicationProperties);
+        luceneWordIndexService.open();
+        when(wordRepository.findAllAsDtoAfter(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<>(Arrays.asList(
+            new WordDTO(1L, "Ёлка", "fir tree", null, 7L, "Природа", "Nature"),
+            new WordDTO(2L, "словарь", "dictionary", null, null, null, null),
+            new WordDTO(3L, "слово", "word", null, null, null, null))));
+        luceneWordIndexService.reindex();
+    }
+
+    @After
+    public void close() throws IOException {
+        luceneWordIndexService.close();
+    }
+
+    @Test
+    public void testSearchExactTerm() {
+        Page<WordDTO> page = luceneWordIndexService.search(" елка ", Language.RU, null, MatchMode.EXACT, new PageRequest(0, 10));
+        assertThat(ids(page)).containsExactly(1L);
+        assertThat(page.getContent().get(0).getRus()).isEqualTo("Ёлка");
+        assertThat(page.getContent().get(0).getCat().getEn()).isEqualTo("Nature");
+        assertThat(ids(luceneWordIndexService.search("елка", Language.EN, null, MatchMode.EXACT, new PageRequest(0, 10)))).isEmpty();
+    }
+
+    @Test
+    public void testSearchPrefixAndStem() {
+        assertThat(ids(luceneWordIndexService.search("сло", null, null, MatchMode.PREFIX, new PageRequest(0, 10))))
+            .containsOnly(2L, 3L);
+        assertThat(ids(luceneWordIndexService.search("словаря", Language.RU, null, MatchMode.MATCH, new PageRequest(0, 10))))
+            .containsExactly(2L);
+    }
+
+    @Test
+    public void testSearchInCategory() {
+        assertThat(ids(luceneWordIndexService.search("fir tree", null, 7L, MatchMode.EXACT, new PageRequest(0, 10)))).containsExactly(1L);
+        assertThat(ids(luceneWordIndexService.search("fir tree", null, 8L, MatchMode.EXACT, new PageRequest(0, 10)))).isEmpty();
+    }
+
+    @Test
+    public void testSearchTextAndQueryString() {
+        Page<WordDTO> page = luceneWordIndexService.searchText("dictionaries", new PageRequest(0, 10));
+        assertThat(ids(page)).containsExactly(2L);
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(ids(luceneWordIndexService.searchQueryString("en:word OR id:1", new PageRequest(0, 10)))).containsOnly(1L, 3L);
+        assertThatThrownBy(() -> luceneWordIndexService.searchQueryString("en:(word", new PageRequest(0, 10)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testSearchPage() {
+        Page<WordDTO> page = luceneWordIndexService.search("сло", null, null, MatchMode.PREFIX, new PageRequest(1, 1));
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSyncReplacesAndDeletesWords() {
+        when(wordRepository.findAllAsDtoModifiedSinceAfter(any(Instant.class), anyLong(), any(Pageable.class)))
+            .thenReturn(new ArrayList<>(Collections.singletonList(new WordDTO(2L, "лексикон", "dictionary", null, null, null, null))));
+        luceneWordIndexService.sync();
+        assertThat(ids(luceneWordIndexService.search("словарь", Language.RU, null, MatchMode.EXACT, new PageRequest(0, 10)))).isEmpty();
+        assertThat(ids(luceneWordIndexService.search("лексикон", Language.RU, null, MatchMode.EXACT, new PageRequest(0, 10)))).containsExactly(2L);
+
+        deleteBySync(2L);
+        assertThat(ids(luceneWordIndexService.searchText("dictionary", new PageRequest(0, 10)))).isEmpty();
+    }
+
+    @Test
+    public void testFailedReindexKeepsPreviousIndex() {
+        when(wordRepository.findAllAsDtoAfter(anyLong(), any(Pageable.class))).thenThrow(new IllegalStateException("Database down"));
+
+        assertThatThrownBy(() -> luceneWordIndexService.reindex()).isInstanceOf(IllegalStateException.class);
+        assertThat(ids(luceneWordIndexService.searchText("dictionary", new PageRequest(0, 10)))).containsExactly(2L);
+
+        deleteBySync(2L);
+        assertThat(ids(luceneWordIndexService.searchText("dictionary", new PageRequest(0, 10)))).isEmpty();
+    }
+
+    @Test
+    public void testSyncReadsChangesAndTombstones() {
+        when(wordRepository.findAllAsDtoAfter(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<>(Arrays.asList(
+            new WordDTO(2L, "словарь", "dictionary", null, null, null, null),
+            new WordDTO(3L, "слово", "word", null, null, null, null))));
+        luceneWordIndexService.reindex();
+        assertThat(ids(luceneWordIndexService.search("сло", null, null, MatchMode.PREFIX, new PageRequest(0, 10)))).containsOnly(2L, 3L);
+
+        when(wordRepository.findAllAsDtoModifiedSinceAfter(any(Instant.class), anyLong(), any(Pageable.class)))
+            .thenReturn(new ArrayList<>(Collections.singletonList(new WordDTO(2L, "лексикон", "dictionary", null, null, null, null))));
+        when(searchTombstoneRepository.findEntityIdsDeletedSince(eq(EntityType.WORD), any(Instant.class)))
+            .thenReturn(Collections.singletonList(3L));
+        luceneWordIndexService.sync();
+
+        assertThat(ids(luceneWordIndexService.search("лексикон", Language.RU, null, MatchMode.EXACT, new PageRequest(0, 10)))).containsExactly(2L);
+        assertThat(ids(luceneWordIndexService.search("сло", null, null, MatchMode.PREFIX, new PageRequest(0, 10)))).isEmpty();
+    }
+
+    private void deleteBySync(Long id) {
+        when(wordRepository.findAllAsDtoModifiedSinceAfter(any(Instant.class), anyLong(), any(Pageable.class)))
+            .thenReturn(new ArrayList<>());
+        when(searchTombstoneRepository.findEntityIdsDeletedSince(eq(EntityType.WORD), any(Instant.class)))
+            .thenReturn(Collections.singletonList(id));
+        luceneWordIndexService.sync();
+    }
+
+    private static List<Long> ids(Page<WordDTO> page) {
+        return page.getContent().stream().map(WordDTO::getId).collect(Collectors.toList());
+    }
+}
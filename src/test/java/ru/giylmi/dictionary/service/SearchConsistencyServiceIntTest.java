@@ -0,0 +1,106 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.DictionaryApp;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.SearchOutboxRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import ru.giylmi.dictionary.service.dto.SearchConsistencyDTO;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for the SearchConsistencyService.
+ *
+ * @see SearchConsistencyService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+@Transactional
+public class SearchConsistencyServiceIntTest {
+
+    @Autowired
+    private SearchConsistencyService searchConsistencyService;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private WordSearchRepository wordSearchRepository;
+
+    @Autowired
+    private SearchDocumentService searchDocumentService;
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Before
+    public void initTest() {
+        wordSearchRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatDivergentDocumentsAreSentToTheOutbox() {
+        Word indexed = wordRepository.saveAndFlush(new Word().rus("согласие").en("consistent"));
+        index(indexed);
+        Word missing = wordRepository.saveAndFlush(new Word().rus("пропуск").en("missing"));
+        Word different = wordRepository.saveAndFlush(new Word().rus("отличие").en("different"));
+        // The document was written from an older version of the row
+        Word older = new Word().rus("отличие").en("older");
+        older.setId(different.getId());
+        older.setLastModifiedDate(different.getLastModifiedDate().minusSeconds(60));
+        index(older);
+        Word extra = new Word().rus("лишнее").en("extra");
+        extra.setId(Long.MAX_VALUE);
+        index(extra);
+        // A document written without a stamp cannot be trusted
+        Word unstamped = wordRepository.saveAndFlush(new Word().rus("штамп").en("unstamped"));
+        wordSearchRepository.save(unstamped);
+
+        assertThat(searchConsistencyService.check()).isTrue();
+
+        List<Long> repairedIds = searchOutboxRepository.findAll().stream()
+            .filter(entry -> entry.getEntityType() == EntityType.WORD)
+            .map(SearchOutboxEntry::getEntityId)
+            .collect(Collectors.toList());
+        assertThat(repairedIds).contains(missing.getId(), different.getId(), extra.getId(), unstamped.getId());
+        assertThat(repairedIds).doesNotContain(indexed.getId());
+
+        SearchConsistencyDTO status = searchConsistencyService.getStatus().stream()
+            .filter(consistency -> consistency.getEntity().equals(Word.class.getSimpleName()))
+            .findFirst().get();
+        assertThat(status.getState()).isEqualTo(SearchConsistencyDTO.State.DONE);
+        assertThat(status.getMissing()).isGreaterThanOrEqualTo(1);
+        assertThat(status.getDifferent()).isEqualTo(2);
+        assertThat(status.getExtra()).isEqualTo(1);
+    }
+
+    private void index(Word word) {
+        ElasticsearchPersistentEntity<Word> document = elasticsearchTemplate.getPersistentEntityFor(Word.class);
+        IndexQuery indexQuery = new IndexQuery();
+        indexQuery.setId(String.valueOf(word.getId()));
+        indexQuery.setIndexName(document.getIndexName());
+        indexQuery.setType(document.getIndexType());
+        indexQuery.setSource(searchDocumentService.toSource(word));
+        elasticsearchTemplate.index(indexQuery);
+        elasticsearchTemplate.refresh(document.getIndexName());
+    }
+}
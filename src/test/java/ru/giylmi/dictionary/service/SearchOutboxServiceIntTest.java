@@ -0,0 +1,173 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.DictionaryApp;
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
+import ru.giylmi.dictionary.domain.SearchWatermark;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.SearchOutboxRepository;
+import ru.giylmi.dictionary.repository.SearchWatermarkRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import org.elasticsearch.index.VersionType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for the SearchOutboxService.
+ *
+ * @see SearchOutboxService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+@Transactional
+public class SearchOutboxServiceIntTest {
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private WordSearchRepository wordSearchRepository;
+
+    @Autowired
+    private SearchWatermarkRepository searchWatermarkRepository;
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Before
+    public void initTest() {
+        wordSearchRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatRepeatedChangesAreDispatchedOnce() {
+        Word word = wordRepository.saveAndFlush(new Word().rus("outbox").en("outbox"));
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+        word.setDefinition("updated");
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+
+        int dispatched = searchOutboxService.dispatch();
+
+        assertThat(dispatched).isEqualTo(2);
+        assertThat(searchOutboxRepository.count()).isZero();
+        assertThat(wordSearchRepository.count()).isEqualTo(1);
+        assertThat(wordSearchRepository.findOne(word.getId()).getDefinition()).isEqualTo("updated");
+    }
+
+    @Test
+    public void assertThatDeletedEntitiesAreRemovedFromTheIndex() {
+        Word word = wordRepository.saveAndFlush(new Word().rus("outbox").en("outbox"));
+        wordSearchRepository.save(word);
+        wordRepository.delete(word);
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+
+        searchOutboxService.dispatch();
+
+        assertThat(wordSearchRepository.exists(word.getId())).isFalse();
+    }
+
+    @Test
+    public void assertThatCategoryChangesAreCopiedToItsWords() {
+        Category category = categoryRepository.saveAndFlush(new Category().rus("outbox").en("outbox"));
+        Word word = wordRepository.saveAndFlush(new Word().rus("outbox").en("outbox").category(category));
+        wordSearchRepository.save(word);
+        category.setEn("renamed");
+        categoryRepository.saveAndFlush(category);
+        searchOutboxService.enqueue(EntityType.CATEGORY, category.getId());
+
+        searchOutboxService.dispatch();
+
+        assertThat(searchOutboxRepository.count()).isZero();
+        Word document = wordSearchRepository.findOne(word.getId());
+        assertThat(document.getCategory().getEn()).isEqualTo("renamed");
+        assertThat(document.getRus()).isEqualTo("outbox");
+    }
+
+    @Test
+    public void assertThatLeasedAndParkedEntriesAreNotDispatched() {
+        Word word = wordRepository.saveAndFlush(new Word().rus("outbox").en("outbox"));
+        Word leasedWord = wordRepository.saveAndFlush(new Word().rus("leased").en("leased"));
+        Word parkedWord = wordRepository.saveAndFlush(new Word().rus("parked").en("parked"));
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+        // Claimed by another instance, or failed too many times
+        SearchOutboxEntry leased = new SearchOutboxEntry(EntityType.WORD, leasedWord.getId());
+        leased.setAvailableDate(Instant.now().plus(1, ChronoUnit.HOURS));
+        SearchOutboxEntry parked = new SearchOutboxEntry(EntityType.WORD, parkedWord.getId());
+        parked.setParked(true);
+        searchOutboxRepository.saveAndFlush(leased);
+        searchOutboxRepository.saveAndFlush(parked);
+
+        int dispatched = searchOutboxService.dispatch();
+
+        assertThat(dispatched).isEqualTo(1);
+        assertThat(searchOutboxRepository.findAll()).extracting(SearchOutboxEntry::getEntityId)
+            .containsOnly(leasedWord.getId(), parkedWord.getId());
+        assertThat(wordSearchRepository.exists(word.getId())).isTrue();
+        assertThat(wordSearchRepository.exists(leasedWord.getId())).isFalse();
+    }
+
+    @Test
+    public void assertThatChangesAreSentToTheIndexBeingBuilt() {
+        String index = "word_building_test";
+        elasticsearchTemplate.createIndex(index);
+        try {
+            // Recorded by the instance running the reindex
+            SearchWatermark watermark = new SearchWatermark(EntityType.WORD, null);
+            watermark.setBuildingIndex(index);
+            searchWatermarkRepository.saveAndFlush(watermark);
+            Word word = wordRepository.saveAndFlush(new Word().rus("outbox").en("outbox"));
+            searchOutboxService.enqueue(EntityType.WORD, word.getId());
+
+            searchOutboxService.dispatch();
+
+            String type = elasticsearchTemplate.getPersistentEntityFor(Word.class).getIndexType();
+            assertThat(elasticsearchTemplate.getClient().prepareGet(index, type, word.getId().toString()).get().isExists()).isTrue();
+            assertThat(wordSearchRepository.exists(word.getId())).isTrue();
+        } finally {
+            elasticsearchTemplate.deleteIndex(index);
+        }
+    }
+
+    @Test
+    public void assertThatNewerDocumentsAreNotOverwritten() {
+        Word word = wordRepository.saveAndFlush(new Word().rus("outbox").en("outbox"));
+        String type = elasticsearchTemplate.getPersistentEntityFor(Word.class).getIndexType();
+        String index = elasticsearchTemplate.getPersistentEntityFor(Word.class).getIndexName();
+        // Written from a later read of the word
+        elasticsearchTemplate.getClient().prepareIndex(index, type, word.getId().toString())
+            .setSource("{\"id\":" + word.getId() + ",\"rus\":\"outbox\",\"en\":\"outbox\",\"definition\":\"newer\"}")
+            .setVersion(word.getLastModifiedDate().plus(1, ChronoUnit.HOURS).toEpochMilli())
+            .setVersionType(VersionType.EXTERNAL_GTE)
+            .get();
+        searchOutboxService.enqueue(EntityType.WORD, word.getId());
+
+        int dispatched = searchOutboxService.dispatch();
+
+        assertThat(dispatched).isEqualTo(1);
+        assertThat(searchOutboxRepository.count()).isZero();
+        assertThat(wordSearchRepository.findOne(word.getId()).getDefinition()).isEqualTo("newer");
+    }
+}
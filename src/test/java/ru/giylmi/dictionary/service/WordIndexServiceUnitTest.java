@@ -0,0 +1,84 @@
+package ru.giylmi.dictionary.service;
+
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.index.Language;
+import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the WordIndexService in-memory word index.
+ *
+ * @see WordIndexService
+ */
+public class WordIndexServiceUnitTest {
+
+    private WordIndexService wordIndexService;
+
+    private WordRepository wordRepository;
+
+    @Before
+    public void setup() {
+        wordRepository = mock(WordRepository.class);
+        wordIndexService = new WordIndexService(wordRepository, mock(CategoryRepository.class), mock(CategoryMapper.class));
+    }
+
+    @Test
+    public void testReloadLoadsTheWords() {
+        when(wordRepository.findAllAsDtoAfter(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<>(Arrays.asList(
+            new WordDTO(1L, "словарь", "dictionary", null, null, null, null),
+            new WordDTO(2L, "слово", "word", null, null, null, null))));
+
+        wordIndexService.reload();
+
+        assertThat(wordIndexService.size()).isEqualTo(2);
+        assertThat(translate("словарь")).containsExactly(1L);
+    }
+
+    @Test
+    public void testReloadKeepsTheWritesMadeWhileLoading() {
+        wordIndexService.index(new WordDTO(1L, "словарь", "dictionary", null, null, null, null));
+        // The words are read before the writes commit, and returned as they were
+        when(wordRepository.findAllAsDtoAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            wordIndexService.remove(1L);
+            wordIndexService.index(new WordDTO(2L, "слово", "word", null, null, null, null));
+            return new ArrayList<>(Collections.singletonList(new WordDTO(1L, "словарь", "dictionary", null, null, null, null)));
+        });
+
+        wordIndexService.reload();
+
+        assertThat(wordIndexService.size()).isEqualTo(1);
+        assertThat(translate("словарь")).isEmpty();
+        assertThat(translate("слово")).containsExactly(2L);
+
+        // The writes made after the reload are not replayed again by the next one
+        when(wordRepository.findAllAsDtoAfter(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<>(Collections.singletonList(
+            new WordDTO(1L, "словарь", "dictionary", null, null, null, null))));
+        wordIndexService.reload();
+
+        assertThat(translate("словарь")).containsExactly(1L);
+        assertThat(translate("слово")).isEmpty();
+    }
+
+    private List<Long> translate(String term) {
+        return wordIndexService.translate(Language.RU, term, 0).getWords().stream()
+            .map(WordDTO::getId)
+            .collect(Collectors.toList());
+    }
+}
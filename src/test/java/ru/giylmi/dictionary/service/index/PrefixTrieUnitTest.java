@@ -0,0 +1,80 @@
+package ru.giylmi.dictionary.service.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PrefixTrie index structure.
+ *
+ * @see PrefixTrie
+ */
+public class PrefixTrieUnitTest {
+
+    private PrefixTrie trie;
+
+    @Before
+    public void setup() {
+        trie = new PrefixTrie();
+        trie.add("дом", 1L);
+        trie.add("домик", 2L);
+        trie.add("дорога", 3L);
+        trie.add("house", 4L);
+        trie.add("дом", 5L);
+    }
+
+    @Test
+    public void testVisitInLexicographicOrder() {
+        assertThat(keys("до", 10)).containsExactly("дом", "домик", "дорога");
+        assertThat(keys("дом", 10)).containsExactly("дом", "домик");
+        assertThat(keys("доми", 10)).containsExactly("домик");
+        assertThat(keys("домики", 10)).isEmpty();
+        assertThat(keys("x", 10)).isEmpty();
+        assertThat(trie.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testVisitStopsAtLimit() {
+        assertThat(keys("д", 2)).containsExactly("дом", "домик");
+    }
+
+    @Test
+    public void testSharedKeyKeepsAllIds() {
+        List<Long> ids = new ArrayList<>();
+        trie.visit("дом", (key, keyIds) -> {
+            if (key.equals("дом")) {
+                for (long id : keyIds) {
+                    ids.add(id);
+                }
+            }
+            return true;
+        });
+        assertThat(ids).containsExactly(1L, 5L);
+    }
+
+    @Test
+    public void testRemoveMergesNodes() {
+        trie.remove("дом", 1L);
+        assertThat(keys("дом", 10)).containsExactly("дом", "домик");
+        trie.remove("дом", 5L);
+        assertThat(keys("дом", 10)).containsExactly("домик");
+        trie.remove("дорога", 3L);
+        assertThat(keys("до", 10)).containsExactly("домик");
+        trie.add("дорога", 3L);
+        assertThat(keys("до", 10)).containsExactly("домик", "дорога");
+        assertThat(trie.size()).isEqualTo(3);
+    }
+
+    private List<String> keys(String prefix, int limit) {
+        List<String> keys = new ArrayList<>();
+        trie.visit(prefix, (key, ids) -> {
+            keys.add(key);
+            return keys.size() < limit;
+        });
+        return keys;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.giylmi.dictionary.service.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SymmetricDeleteIndex index structure.
+ *
+ * @see SymmetricDeleteIndex
+ */
+public class SymmetricDeleteIndexUnitTest {
+
+    private SymmetricDeleteIndex index;
+
+    @Before
+    public void setup() {
+        index = new SymmetricDeleteIndex(2, 7, 16);
+        index.add("собака");
+        index.add("собрание");
+        index.add("кошка");
+        index.add("dog");
+    }
+
+    @Test
+    public void testLookupFindsTyposInCyrillic() {
+        assertThat(terms("сабака", 2)).containsExactly("собака");
+        assertThat(terms("сбоака", 1)).containsExactly("собака");
+        assertThat(terms("кшока", 2)).containsExactly("кошка");
+        assertThat(terms("кошка", 0)).containsExactly("кошка");
+    }
+
+    @Test
+    public void testLookupRespectsDistance() {
+        assertThat(terms("сабакаа", 1)).isEmpty();
+        assertThat(terms("сабакаа", 2)).containsExactly("собака");
+        assertThat(terms("cat", 2)).isEmpty();
+    }
+
+    @Test
+    public void testLookupOrdersByDistance() {
+        index.add("собаки");
+        List<SymmetricDeleteIndex.Match> matches = index.lookup("собака", 2, 10);
+        assertThat(matches).extracting(SymmetricDeleteIndex.Match::getTerm).containsExactly("собака", "собаки");
+        assertThat(matches).extracting(SymmetricDeleteIndex.Match::getDistance).containsExactly(0, 1);
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove("собака");
+        assertThat(terms("собака", 2)).isEmpty();
+        assertThat(terms("кошка", 2)).containsExactly("кошка");
+    }
+
+    private List<String> terms(String term, int distance) {
+        return index.lookup(term, distance, 10).stream()
+            .map(SymmetricDeleteIndex.Match::getTerm)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,122 @@
+package ru.giylmi.dictionary.service.index;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TextAnnotator scanner and its TermAutomaton.
+ *
+ * @see TextAnnotator
+ * @see TermAutomaton
+ */
+public class TextAnnotatorUnitTest {
+
+    private static final String TEXT = "A Green  Fir, firs and ДОМ.";
+
+    private TermAutomaton automaton;
+
+    @Before
+    public void setup() {
+        automaton = new TermAutomaton();
+        automaton.add("green fir");
+        automaton.add("fir");
+        automaton.add("дом");
+        automaton.add("fir tree");
+        automaton.link();
+    }
+
+    @Test
+    public void testFindTermsOnWordBoundaries() {
+        assertThat(annotate(TEXT, false, TEXT.length()))
+            .containsExactly("2-12:green fir", "9-12:fir", "23-26:дом");
+    }
+
+    @Test
+    public void testFindTermsAcrossChunks() {
+        assertThat(annotate(TEXT, false, 1))
+            .containsExactly("2-12:green fir", "9-12:fir", "23-26:дом");
+        assertThat(annotate("fir", false, 1)).containsExactly("0-3:fir");
+    }
+
+    @Test
+    public void testSkipMarkup() {
+        assertThat(annotate("<p class=\"дом\">Green&nbsp;fir</p>", true, 4))
+            .containsExactly("15-29:green fir", "26-29:fir");
+    }
+
+    @Test
+    public void testSkipScriptAndStyleBodies() {
+        assertThat(annotate("<script>var fir = 1;</script><STYLE>.fir{}</style>fir", true, 4))
+            .containsExactly("50-53:fir");
+    }
+
+    @Test
+    public void testReadAmpersandAsTextOutsideCharacterReferences() {
+        assertThat(annotate("&green fir", true, 3)).containsExactly("1-10:green fir", "7-10:fir");
+        assertThat(annotate("&#1234567890123 fir", true, 3)).containsExactly("16-19:fir");
+    }
+
+    @Test
+    public void testRemoveTerm() {
+        automaton.remove("fir");
+        automaton.link();
+
+        assertThat(annotate(TEXT, false, TEXT.length())).containsExactly("2-12:green fir", "23-26:дом");
+        assertThat(automaton.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRemoveTermPrunesItsNodes() {
+        automaton.remove("green fir");
+        automaton.remove("fir tree");
+        automaton.link();
+
+        assertThat(automaton.next(automaton.getRoot(), 'g')).isSameAs(automaton.getRoot());
+        assertThat(annotate("green fir tree", false, 4)).containsExactly("6-9:fir");
+    }
+
+    @Test
+    public void testCopyIsLeftUnchanged() {
+        TermAutomaton copy = automaton.copy();
+        copy.link();
+        automaton.add("firs");
+        automaton.link();
+
+        assertThat(copy.getModCount()).isLessThan(automaton.getModCount());
+        assertThat(annotate(copy, TEXT, false, TEXT.length()))
+            .containsExactly("2-12:green fir", "9-12:fir", "23-26:дом");
+    }
+
+    @Test
+    public void testAddTermAfterLink() {
+        automaton.add("firs");
+        assertThat(automaton.isLinked()).isFalse();
+        automaton.link();
+
+        assertThat(annotate(TEXT, false, TEXT.length()))
+            .containsExactly("2-12:green fir", "9-12:fir", "14-18:firs", "23-26:дом");
+    }
+
+    private List<String> annotate(String text, boolean html, int chunkSize) {
+        return annotate(automaton, text, html, chunkSize);
+    }
+
+    private List<String> annotate(TermAutomaton automaton, String text, boolean html, int chunkSize) {
+        List<String> found = new ArrayList<>();
+        TextAnnotator annotator = new TextAnnotator(automaton, html, (start, end, key) -> found.add(start + "-" + end + ":" + key));
+        char[] chars = text.toCharArray();
+        for (int from = 0; from < chars.length; from += chunkSize) {
+            int length = Math.min(chunkSize, chars.length - from);
+            char[] chunk = new char[length];
+            System.arraycopy(chars, from, chunk, 0, length);
+            annotator.feed(chunk, length);
+        }
+        annotator.finish();
+        return found;
+    }
+}
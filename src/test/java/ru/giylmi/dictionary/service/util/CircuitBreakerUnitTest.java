@@ -0,0 +1,112 @@
+package ru.giylmi.dictionary.service.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CircuitBreaker utility class.
+ *
+ * @see CircuitBreaker
+ */
+public class CircuitBreakerUnitTest {
+
+    private long now;
+
+    private CircuitBreaker breaker;
+
+    @Before
+    public void init() {
+        now = 0;
+        breaker = new CircuitBreaker(4, 50, 100, 1000, () -> now);
+    }
+
+    @Test
+    public void testStaysClosedBelowFailureRate() {
+        call(true);
+        call(false);
+        call(false);
+        call(false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    public void testOpensAtFailureRate() {
+        call(false);
+        call(true);
+        call(false);
+        call(true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void testSlowCallsCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess(100);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void testOldOutcomesLeaveTheWindow() {
+        call(true);
+        call(false);
+        call(false);
+        call(false);
+        call(false);
+        call(true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testLetsASingleTrialCallThroughOnceOpenDurationIsOver() {
+        openBreaker();
+        now = 999;
+        assertThat(breaker.tryAcquire()).isFalse();
+        now = 1000;
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    public void testClosesWhenTrialCallSucceeds() {
+        openBreaker();
+        now = 1000;
+        call(false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        // The window starts over, so a single failure does not reopen the breaker
+        call(true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testReopensWhenTrialCallFails() {
+        openBreaker();
+        now = 1000;
+        call(true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        now = 1999;
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    private void openBreaker() {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    private void call(boolean failed) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (failed) {
+            breaker.onFailure();
+        } else {
+            breaker.onSuccess(10);
+        }
+    }
+}
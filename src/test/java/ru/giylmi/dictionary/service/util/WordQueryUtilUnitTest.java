@@ -0,0 +1,46 @@
+package ru.giylmi.dictionary.service.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the WordQueryUtil utility class.
+ *
+ * @see WordQueryUtil
+ */
+public class WordQueryUtilUnitTest {
+
+    @Test
+    public void testPlainTextIsNotQueryString() {
+        assertThat(WordQueryUtil.isQueryString("дом")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("  new house ")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("кое-что")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("dict*")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("and or not")).isFalse();
+    }
+
+    @Test
+    public void testPunctuationIsNotQueryString() {
+        assertThat(WordQueryUtil.isQueryString("what?")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("rock&roll")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("и/или")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("h?use")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("wow!")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("house (informal)")).isFalse();
+        assertThat(WordQueryUtil.isQueryString("note: see also")).isFalse();
+    }
+
+    @Test
+    public void testQueryStringSyntaxIsQueryString() {
+        assertThat(WordQueryUtil.isQueryString("id:42")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("\"new house\"")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("*ouse")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("h*se")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("house~1")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("house OR home")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("house && home")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("house^2")).isTrue();
+        assertThat(WordQueryUtil.isQueryString("/ho.se/")).isTrue();
+    }
+}
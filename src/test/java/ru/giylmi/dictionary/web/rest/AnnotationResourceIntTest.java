@@ -0,0 +1,111 @@
+package ru.giylmi.dictionary.web.rest;
+
+import ru.giylmi.dictionary.DictionaryApp;
+
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.WordIndexService;
+import ru.giylmi.dictionary.service.mapper.WordMapper;
+import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the AnnotationResource REST controller.
+ *
+ * @see AnnotationResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+public class AnnotationResourceIntTest {
+
+    private static final String DEFAULT_RUS = "Зелёная ёлка";
+    private static final String DEFAULT_EN = "green fir";
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private WordMapper wordMapper;
+
+    @Autowired
+    private WordIndexService wordIndexService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restAnnotationMockMvc;
+
+    private Word word;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        AnnotationResource annotationResource = new AnnotationResource(wordIndexService, objectMapper);
+        this.restAnnotationMockMvc = MockMvcBuilders.standaloneSetup(annotationResource)
+            .setControllerAdvice(exceptionTranslator).build();
+    }
+
+    @Before
+    public void initTest() {
+        word = new Word()
+            .rus(DEFAULT_RUS)
+            .en(DEFAULT_EN)
+            .definition("AAAAAAAAAA");
+    }
+
+    @Test
+    @Transactional
+    public void annotatePlainText() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+
+        restAnnotationMockMvc.perform(post("/api/annotate")
+            .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+            .content("Под зелёной ЗЕЛЕНАЯ  Ёлкой растёт a Green Fir."))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(content().string(containsString("\"start\":36,\"end\":45,\"term\":\"green fir\",\"language\":\"en\"")))
+            .andExpect(content().string(containsString("\"id\":" + word.getId())))
+            .andExpect(content().string(not(containsString("\"language\":\"ru\""))));
+
+        wordIndexService.remove(word.getId());
+    }
+
+    @Test
+    @Transactional
+    public void annotateHtml() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+
+        restAnnotationMockMvc.perform(post("/api/annotate")
+            .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+            .content("<p title=\"green fir\">Зеленая&nbsp;<b>елка</b></p>"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("\"start\":21,\"end\":41,\"term\":\"зеленая елка\",\"language\":\"ru\"")))
+            .andExpect(content().string(not(containsString("\"language\":\"en\""))));
+
+        wordIndexService.remove(word.getId());
+    }
+}
@@ -2,13 +2,20 @@ package ru.giylmi.dictionary.web.rest;
 
 import ru.giylmi.dictionary.DictionaryApp;
 
+import ru.giylmi.dictionary.config.ApplicationProperties;
 import ru.giylmi.dictionary.domain.Category;
 import ru.giylmi.dictionary.repository.CategoryRepository;
 import ru.giylmi.dictionary.repository.search.CategorySearchRepository;
+import ru.giylmi.dictionary.security.AuthoritiesConstants;
+import ru.giylmi.dictionary.service.CategoryListService;
+import ru.giylmi.dictionary.service.SearchBackend;
+import ru.giylmi.dictionary.service.SearchOutboxService;
+import ru.giylmi.dictionary.service.WordIndexService;
 import ru.giylmi.dictionary.service.dto.CategoryDTO;
 import ru.giylmi.dictionary.service.mapper.CategoryMapper;
 import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -16,18 +23,22 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -46,6 +57,9 @@ public class CategoryResourceIntTest {
     private static final String DEFAULT_EN = "AAAAAAAAAA";
     private static final String UPDATED_EN = "BBBBBBBBBB";
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
@@ -55,6 +69,21 @@ public class CategoryResourceIntTest {
     @Autowired
     private CategorySearchRepository categorySearchRepository;
 
+    @Autowired
+    private SearchBackend searchBackend;
+
+    @Autowired
+    private WordIndexService wordIndexService;
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private CategoryListService categoryListService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -74,7 +103,8 @@ public class CategoryResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        CategoryResource categoryResource = new CategoryResource(categoryRepository, categoryMapper, categorySearchRepository);
+        CategoryResource categoryResource = new CategoryResource(categoryRepository, categoryMapper, searchBackend, wordIndexService,
+            searchOutboxService, categoryListService, applicationProperties);
         this.restCategoryMockMvc = MockMvcBuilders.standaloneSetup(categoryResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -120,6 +150,7 @@ public class CategoryResourceIntTest {
         assertThat(testCategory.getEn()).isEqualTo(DEFAULT_EN);
 
         // Validate the Category in Elasticsearch
+        searchOutboxService.dispatch();
         Category categoryEs = categorySearchRepository.findOne(testCategory.getId());
         assertThat(categoryEs).isEqualToComparingFieldByField(testCategory);
     }
@@ -159,6 +190,56 @@ public class CategoryResourceIntTest {
             .andExpect(jsonPath("$.[*].en").value(hasItem(DEFAULT_EN.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllCategoriesNotModified() throws Exception {
+        // Initialize the database
+        categoryRepository.saveAndFlush(category);
+
+        String eTag = restCategoryMockMvc.perform(get("/api/categories"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotEmpty();
+
+        // The list did not change since the client got it
+        restCategoryMockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+
+        // Update the category, which changes the list
+        categoryRepository.saveAndFlush(category.rus(UPDATED_RUS));
+
+        restCategoryMockMvc.perform(get("/api/categories").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.[*].rus").value(hasItem(UPDATED_RUS)));
+    }
+
+    @Test
+    @Transactional
+    public void getAllCategoriesAfterTimeToLive() throws Exception {
+        // Initialize the database
+        categoryRepository.saveAndFlush(category);
+        ApplicationProperties expiringProperties = new ApplicationProperties();
+        expiringProperties.getCache().setCategoryTimeToLiveSeconds(0);
+        CategoryListService expiringListService = new CategoryListService(categoryRepository, categoryMapper,
+            objectMapper, em, expiringProperties);
+        String eTag = expiringListService.getAll().getETag();
+
+        // Update the category behind the entity manager, as another instance would
+        em.createNativeQuery("update category set rus = ? where id = ?")
+            .setParameter(1, UPDATED_RUS)
+            .setParameter(2, category.getId())
+            .executeUpdate();
+        em.clear();
+
+        CategoryListService.SerializedCategories categories = expiringListService.getAll();
+        assertThat(categories.getETag()).isNotEqualTo(eTag);
+        assertThat(new String(categories.getBody(), StandardCharsets.UTF_8)).contains(UPDATED_RUS);
+    }
+
     @Test
     @Transactional
     public void getCategory() throws Exception {
@@ -210,6 +291,7 @@ public class CategoryResourceIntTest {
         assertThat(testCategory.getEn()).isEqualTo(UPDATED_EN);
 
         // Validate the Category in Elasticsearch
+        searchOutboxService.dispatch();
         Category categoryEs = categorySearchRepository.findOne(testCategory.getId());
         assertThat(categoryEs).isEqualToComparingFieldByField(testCategory);
     }
@@ -247,6 +329,7 @@ public class CategoryResourceIntTest {
             .andExpect(status().isOk());
 
         // Validate Elasticsearch is empty
+        searchOutboxService.dispatch();
         boolean categoryExistsInEs = categorySearchRepository.exists(category.getId());
         assertThat(categoryExistsInEs).isFalse();
 
@@ -257,6 +340,7 @@ public class CategoryResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
     public void searchCategory() throws Exception {
         // Initialize the database
         categoryRepository.saveAndFlush(category);
@@ -271,6 +355,27 @@ public class CategoryResourceIntTest {
             .andExpect(jsonPath("$.[*].en").value(hasItem(DEFAULT_EN.toString())));
     }
 
+    @Test
+    @Transactional
+    public void searchCategoryByText() throws Exception {
+        // Initialize the database
+        categoryRepository.saveAndFlush(category);
+        categorySearchRepository.save(category);
+
+        // Search the category by its english name
+        restCategoryMockMvc.perform(get("/api/_search/categories").param("query", DEFAULT_EN))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(category.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchCategoryWithQueryStringAsUser() throws Exception {
+        restCategoryMockMvc.perform(get("/api/_search/categories?query=id:1"))
+            .andExpect(status().isForbidden());
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
@@ -0,0 +1,134 @@
+package ru.giylmi.dictionary.web.rest;
+
+import ru.giylmi.dictionary.DictionaryApp;
+
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.repository.search.CategorySearchRepository;
+import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import ru.giylmi.dictionary.security.AuthoritiesConstants;
+import ru.giylmi.dictionary.service.GlobalSearchService;
+import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the GlobalSearchResource REST controller.
+ *
+ * @see GlobalSearchResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+public class GlobalSearchResourceIntTest {
+
+    private static final String DEFAULT_TERM = "omnibox";
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private WordSearchRepository wordSearchRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategorySearchRepository categorySearchRepository;
+
+    @Autowired
+    private GlobalSearchService globalSearchService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restGlobalSearchMockMvc;
+
+    private Word word;
+
+    private Category category;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        GlobalSearchResource globalSearchResource = new GlobalSearchResource(globalSearchService);
+        this.restGlobalSearchMockMvc = MockMvcBuilders.standaloneSetup(globalSearchResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Before
+    public void initTest() {
+        category = new Category()
+            .rus("омнибокс")
+            .en(DEFAULT_TERM);
+        word = new Word()
+            .rus("омнибокс")
+            .en(DEFAULT_TERM)
+            .definition("AAAAAAAAAA");
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchAll() throws Exception {
+        categoryRepository.saveAndFlush(category);
+        categorySearchRepository.save(category);
+        wordRepository.saveAndFlush(word);
+        wordSearchRepository.save(word);
+
+        restGlobalSearchMockMvc.perform(get("/api/_search/all").param("query", DEFAULT_TERM))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.words.hits.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.words.total").isNumber())
+            .andExpect(jsonPath("$.categories.hits.[*].id").value(hasItem(category.getId().intValue())))
+            .andExpect(jsonPath("$.categories.total").isNumber())
+            .andExpect(jsonPath("$.users").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void searchAllAsAdmin() throws Exception {
+        restGlobalSearchMockMvc.perform(get("/api/_search/all").param("query", "admin"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.users.total").isNumber());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchAllWithQueryStringAsUser() throws Exception {
+        restGlobalSearchMockMvc.perform(get("/api/_search/all").param("query", "id:1"))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchAllBeyondLimits() throws Exception {
+        restGlobalSearchMockMvc.perform(get("/api/_search/all").param("query", DEFAULT_TERM).param("size", "1000"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,157 @@
+package ru.giylmi.dictionary.web.rest;
+
+import ru.giylmi.dictionary.DictionaryApp;
+
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.CategoryRepository;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.dto.CategoryDTO;
+import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.mapper.CategoryMapper;
+import ru.giylmi.dictionary.service.mapper.WordMapper;
+import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the Hibernate second-level cache and query cache, enabled as in the dev and prod profiles.
+ * The tests are not transactional, so that the writes through the REST controllers commit, and the reads that follow
+ * go through the cache.
+ *
+ * @see ru.giylmi.dictionary.config.CacheConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class, properties = {
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+    "spring.jpa.properties.hibernate.cache.region.factory_class=io.github.jhipster.config.jcache.NoDefaultJCacheRegionFactory"
+})
+public class SecondLevelCacheIntTest {
+
+    private static final String DEFAULT_EN = "AAAAAAAAAA";
+    private static final String UPDATED_EN = "BBBBBBBBBB";
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private WordMapper wordMapper;
+
+    @Autowired
+    private CategoryResource categoryResource;
+
+    @Autowired
+    private WordResource wordResource;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private MockMvc restMockMvc;
+
+    private Category category;
+
+    private Word word;
+
+    @Before
+    public void setup() {
+        this.restMockMvc = MockMvcBuilders.standaloneSetup(categoryResource, wordResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        category = categoryRepository.saveAndFlush(new Category().rus("кэш").en(DEFAULT_EN));
+        word = wordRepository.saveAndFlush(new Word().rus("кэш").en(DEFAULT_EN).category(category));
+    }
+
+    @After
+    public void cleanup() {
+        if (wordRepository.exists(word.getId())) {
+            wordRepository.delete(word.getId());
+        }
+        if (categoryRepository.exists(category.getId())) {
+            categoryRepository.delete(category.getId());
+        }
+    }
+
+    @Test
+    public void assertThatCategoryWritesAreVisibleThroughTheCache() throws Exception {
+        wordRepository.delete(word.getId());
+        // Load the category and the query result into the cache
+        assertThat(categoryRepository.findOne(category.getId()).getEn()).isEqualTo(DEFAULT_EN);
+        assertThat(categoryRepository.findAll()).extracting(Category::getEn).contains(DEFAULT_EN);
+        assertThat(entityManagerFactory.getCache().contains(Category.class, category.getId())).isTrue();
+
+        CategoryDTO categoryDTO = categoryMapper.toDto(category);
+        categoryDTO.setEn(UPDATED_EN);
+        restMockMvc.perform(put("/api/categories")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(categoryDTO)))
+            .andExpect(status().isOk());
+
+        assertThat(categoryRepository.findOne(category.getId()).getEn()).isEqualTo(UPDATED_EN);
+        assertThat(categoryRepository.findAll()).filteredOn(found -> found.getId().equals(category.getId()))
+            .extracting(Category::getEn).containsExactly(UPDATED_EN);
+
+        restMockMvc.perform(delete("/api/categories/{id}", category.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+
+        assertThat(categoryRepository.findOne(category.getId())).isNull();
+        assertThat(categoryRepository.findAll()).extracting(Category::getId).doesNotContain(category.getId());
+    }
+
+    @Test
+    public void assertThatWordWritesAreVisibleThroughTheCache() throws Exception {
+        // Load the word into the cache
+        assertThat(wordRepository.findOne(word.getId()).getEn()).isEqualTo(DEFAULT_EN);
+        assertThat(wordRepository.findAll()).extracting(Word::getEn).contains(DEFAULT_EN);
+        assertThat(entityManagerFactory.getCache().contains(Word.class, word.getId())).isTrue();
+
+        WordDTO wordDTO = wordMapper.toDto(word);
+        wordDTO.setEn(UPDATED_EN);
+        restMockMvc.perform(put("/api/words")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(wordDTO)))
+            .andExpect(status().isOk());
+
+        assertThat(wordRepository.findOne(word.getId()).getEn()).isEqualTo(UPDATED_EN);
+        restMockMvc.perform(get("/api/words/{id}", word.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.en").value(UPDATED_EN));
+        assertThat(wordRepository.findAll()).filteredOn(found -> found.getId().equals(word.getId()))
+            .extracting(Word::getEn).containsExactly(UPDATED_EN);
+
+        restMockMvc.perform(delete("/api/words/{id}", word.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+
+        assertThat(wordRepository.findOne(word.getId())).isNull();
+        assertThat(wordRepository.findAll()).extracting(Word::getId).doesNotContain(word.getId());
+    }
+}
@@ -0,0 +1,199 @@
+package ru.giylmi.dictionary.web.rest;
+
+import ru.giylmi.dictionary.DictionaryApp;
+
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.WordIndexService;
+import ru.giylmi.dictionary.service.mapper.WordMapper;
+import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
+import ru.giylmi.dictionary.web.rest.vm.TranslationBatchVM;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TranslationResource REST controller.
+ *
+ * @see TranslationResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+public class TranslationResourceIntTest {
+
+    private static final String DEFAULT_RUS = "Ёлка Зелёная";
+    private static final String DEFAULT_EN = "Green Fir";
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private WordMapper wordMapper;
+
+    @Autowired
+    private WordIndexService wordIndexService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restTranslationMockMvc;
+
+    private Word word;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        TranslationResource translationResource = new TranslationResource(wordIndexService);
+        this.restTranslationMockMvc = MockMvcBuilders.standaloneSetup(translationResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Before
+    public void initTest() {
+        word = new Word()
+            .rus(DEFAULT_RUS)
+            .en(DEFAULT_EN)
+            .definition("AAAAAAAAAA");
+    }
+
+    @Test
+    @Transactional
+    public void translateFromRussian() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "ru").param("term", "  елка   зеленая "))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.words.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.words.[*].en").value(hasItem(DEFAULT_EN)));
+
+        wordIndexService.remove(word.getId());
+    }
+
+    @Test
+    @Transactional
+    public void translateFromEnglish() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "en").param("term", "GREEN FIR"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.words.[*].rus").value(hasItem(DEFAULT_RUS)));
+
+        wordIndexService.remove(word.getId());
+    }
+
+    @Test
+    @Transactional
+    public void translateRemovedWord() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+        wordIndexService.remove(word.getId());
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "en").param("term", DEFAULT_EN))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.words.[*].id").value(not(hasItem(word.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    public void translateMisspelledTerm() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "ru").param("term", "ёлак зилёная"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.words").isEmpty())
+            .andExpect(jsonPath("$.didYouMean.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.didYouMean.[*].translation").value(hasItem(DEFAULT_EN)));
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "ru").param("term", "ёлак зилёная")
+            .param("maxDistance", "0"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.didYouMean").isEmpty());
+
+        wordIndexService.remove(word.getId());
+    }
+
+    @Test
+    @Transactional
+    public void translateInflectedForm() throws Exception {
+        wordRepository.saveAndFlush(word.rus("дом").en("house"));
+        wordIndexService.index(wordMapper.toDto(word));
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "ru").param("term", "домов"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.words.[*].id").value(hasItem(word.getId().intValue())));
+
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "en").param("term", "houses"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.words.[*].id").value(hasItem(word.getId().intValue())));
+
+        wordIndexService.remove(word.getId());
+    }
+
+    @Test
+    @Transactional
+    public void translateBatch() throws Exception {
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+        TranslationBatchVM batch = new TranslationBatchVM();
+        batch.setFrom("en");
+        batch.setTerms(Arrays.asList("green fir", "no such term", "GREEN FIR"));
+
+        restTranslationMockMvc.perform(post("/api/translate/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(batch)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].term").value("green fir"))
+            .andExpect(jsonPath("$.[0].found").value(true))
+            .andExpect(jsonPath("$.[0].words.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.[1].term").value("no such term"))
+            .andExpect(jsonPath("$.[1].found").value(false))
+            .andExpect(jsonPath("$.[1].words").isEmpty())
+            .andExpect(jsonPath("$.[2].words.[*].id").value(hasItem(word.getId().intValue())));
+
+        wordIndexService.remove(word.getId());
+    }
+
+    @Test
+    public void translateBatchFromUnknownLanguage() throws Exception {
+        TranslationBatchVM batch = new TranslationBatchVM();
+        batch.setFrom("de");
+        batch.setTerms(Arrays.asList("baum"));
+
+        restTranslationMockMvc.perform(post("/api/translate/batch")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(batch)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void translateFromUnknownLanguage() throws Exception {
+        restTranslationMockMvc.perform(get("/api/translate").param("from", "de").param("term", "baum"))
+            .andExpect(status().isBadRequest());
+    }
+}
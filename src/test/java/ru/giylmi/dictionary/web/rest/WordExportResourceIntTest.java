@@ -0,0 +1,119 @@
+package ru.giylmi.dictionary.web.rest;
+
+import ru.giylmi.dictionary.DictionaryApp;
+
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.service.WordExportService;
+import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the WordExportResource REST controller.
+ *
+ * @see WordExportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+public class WordExportResourceIntTest {
+
+    private static final String DEFAULT_RUS = "экспорт";
+    private static final String DEFAULT_EN = "export";
+    private static final String DEFAULT_DEFINITION = "with \"quotes\", and commas";
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private WordExportService wordExportService;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restWordExportMockMvc;
+
+    private Word word;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        WordExportResource wordExportResource = new WordExportResource(wordExportService);
+        this.restWordExportMockMvc = MockMvcBuilders.standaloneSetup(wordExportResource)
+            .setControllerAdvice(exceptionTranslator).build();
+    }
+
+    @Before
+    public void initTest() {
+        Category category = CategoryResourceIntTest.createEntity(em);
+        em.persist(category);
+        word = new Word()
+            .rus(DEFAULT_RUS)
+            .en(DEFAULT_EN)
+            .definition(DEFAULT_DEFINITION)
+            .category(category);
+    }
+
+    @Test
+    @Transactional
+    public void exportWordsAsNdjson() throws Exception {
+        wordRepository.saveAndFlush(word);
+
+        restWordExportMockMvc.perform(get("/api/words/export?format=ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(content().string(containsString("\"id\":" + word.getId())))
+            .andExpect(content().string(containsString("\"rus\":\"" + DEFAULT_RUS + "\"")))
+            .andExpect(content().string(containsString("\"id\":" + word.getCategory().getId())));
+    }
+
+    @Test
+    @Transactional
+    public void exportWordsAsCsv() throws Exception {
+        wordRepository.saveAndFlush(word);
+
+        restWordExportMockMvc.perform(get("/api/words/export?format=csv"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(content().string(containsString("id,rus,en,definition,category_id,category_rus,category_en\r\n")))
+            .andExpect(content().string(containsString(word.getId() + "," + DEFAULT_RUS + "," + DEFAULT_EN
+                + ",\"with \"\"quotes\"\", and commas\"," + word.getCategory().getId() + ",")));
+    }
+
+    @Test
+    @Transactional
+    public void exportWordsOfAnotherCategory() throws Exception {
+        wordRepository.saveAndFlush(word);
+
+        restWordExportMockMvc.perform(get("/api/words/export?format=csv&category=" + Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().string(not(containsString(DEFAULT_RUS))));
+    }
+
+    @Test
+    @Transactional
+    public void exportWordsInUnknownFormat() throws Exception {
+        restWordExportMockMvc.perform(get("/api/words/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,169 @@
+package ru.giylmi.dictionary.web.rest;
+
+import ru.giylmi.dictionary.DictionaryApp;
+
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.WordRepository;
+import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import ru.giylmi.dictionary.service.SearchOutboxService;
+import ru.giylmi.dictionary.service.WordImportService;
+import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItems;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the WordImportResource REST controller.
+ *
+ * @see WordImportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = DictionaryApp.class)
+public class WordImportResourceIntTest {
+
+    private static final String DEFAULT_RUS = "импорт";
+    private static final String DEFAULT_EN = "import";
+    private static final String DEFAULT_DEFINITION = "with \"quotes\", and commas";
+
+    @Autowired
+    private WordRepository wordRepository;
+
+    @Autowired
+    private WordSearchRepository wordSearchRepository;
+
+    @Autowired
+    private WordImportService wordImportService;
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restWordImportMockMvc;
+
+    private Category category;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        WordImportResource wordImportResource = new WordImportResource(wordImportService);
+        this.restWordImportMockMvc = MockMvcBuilders.standaloneSetup(wordImportResource)
+            .setControllerAdvice(exceptionTranslator).build();
+    }
+
+    @Before
+    public void initTest() {
+        wordSearchRepository.deleteAll();
+        category = CategoryResourceIntTest.createEntity(em);
+    }
+
+    @Test
+    @Transactional
+    public void importWordsAsNdjson() throws Exception {
+        em.persist(category);
+        em.flush();
+        int databaseSizeBeforeImport = wordRepository.findAll().size();
+        String body = "{\"rus\":\"" + DEFAULT_RUS + "\",\"en\":\"" + DEFAULT_EN + "\",\"cat\":{\"id\":" + category.getId() + "}}\n"
+            + "{\"rus\":\n"
+            + "{\"rus\":\"" + DEFAULT_RUS + "\",\"en\":\"" + DEFAULT_EN + "\"}\n"
+            + "\n"
+            + "{\"en\":\"" + DEFAULT_EN + "\",\"cat\":{\"id\":" + Long.MAX_VALUE + "}}\n";
+
+        restWordImportMockMvc.perform(post("/api/words/import?format=ndjson&batchSize=2")
+            .content(body.getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.batches").value(2))
+            .andExpect(jsonPath("$.errors.[*].row").value(hasItems(2, 5)));
+
+        List<Word> wordList = wordRepository.findAll();
+        assertThat(wordList).hasSize(databaseSizeBeforeImport + 2);
+        List<Word> imported = wordList.stream().filter(word -> DEFAULT_EN.equals(word.getEn())).collect(Collectors.toList());
+        assertThat(imported).extracting(Word::getRus).containsOnly(DEFAULT_RUS);
+        assertThat(imported).extracting(word -> word.getCategory() == null ? null : word.getCategory().getId())
+            .containsOnly(category.getId(), null);
+
+        // The imported words are searchable once the outbox is dispatched
+        searchOutboxService.dispatch();
+        assertThat(wordSearchRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @Transactional
+    public void importWordsAsCsv() throws Exception {
+        em.persist(category);
+        em.flush();
+        String body = "id,category_id,rus,en,definition\r\n"
+            + "42," + category.getId() + "," + DEFAULT_RUS + "," + DEFAULT_EN + ",\"" + DEFAULT_DEFINITION.replace("\"", "\"\"") + "\"\r\n"
+            + ",oops," + DEFAULT_RUS + "," + DEFAULT_EN + ",\r\n"
+            + ",,,,\r\n";
+
+        restWordImportMockMvc.perform(post("/api/words/import?format=csv")
+            .content(body.getBytes(StandardCharsets.UTF_8)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.failed").value(2))
+            .andExpect(jsonPath("$.errors.[*].row").value(hasItems(2, 3)));
+
+        List<Word> imported = wordRepository.findAll().stream()
+            .filter(word -> DEFAULT_EN.equals(word.getEn())).collect(Collectors.toList());
+        assertThat(imported).hasSize(1);
+        assertThat(imported.get(0).getId()).isNotEqualTo(42L);
+        assertThat(imported.get(0).getDefinition()).isEqualTo(DEFAULT_DEFINITION);
+        assertThat(imported.get(0).getCategory().getId()).isEqualTo(category.getId());
+    }
+
+    @Test
+    public void importWordsReportsOnlyTheRejectedRows() throws Exception {
+        String marker = "rejected-rows";
+        String body = "rus,en\n"
+            + DEFAULT_RUS + "," + marker + "\n"
+            + StringUtils.repeat('я', 300) + "," + marker + "\n"
+            + DEFAULT_RUS + "," + marker + "\n"
+            + DEFAULT_RUS + ",\"" + marker;
+
+        try {
+            restWordImportMockMvc.perform(post("/api/words/import?format=csv&batchSize=3")
+                .content(body.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors.[*].row").value(hasItems(2, 4)));
+        } finally {
+            wordRepository.delete(wordRepository.findAll().stream()
+                .filter(word -> marker.equals(word.getEn())).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    @Transactional
+    public void importWordsInUnknownFormat() throws Exception {
+        restWordImportMockMvc.perform(post("/api/words/import?format=xml").content("<words/>"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -2,10 +2,18 @@ package ru.giylmi.dictionary.web.rest;
 
 import ru.giylmi.dictionary.DictionaryApp;
 
+import ru.giylmi.dictionary.domain.Category;
+import ru.giylmi.dictionary.domain.SearchOutboxEntry.EntityType;
 import ru.giylmi.dictionary.domain.Word;
+import ru.giylmi.dictionary.repository.SearchTombstoneRepository;
 import ru.giylmi.dictionary.repository.WordRepository;
 import ru.giylmi.dictionary.repository.search.WordSearchRepository;
+import ru.giylmi.dictionary.security.AuthoritiesConstants;
+import ru.giylmi.dictionary.service.SearchOutboxService;
+import ru.giylmi.dictionary.service.WordIndexService;
+import ru.giylmi.dictionary.service.WordSearchService;
 import ru.giylmi.dictionary.service.dto.WordDTO;
+import ru.giylmi.dictionary.service.index.Language;
 import ru.giylmi.dictionary.service.mapper.WordMapper;
 import ru.giylmi.dictionary.web.rest.errors.ExceptionTranslator;
 
@@ -16,18 +24,26 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.time.Instant;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -58,6 +74,18 @@ public class WordResourceIntTest {
     @Autowired
     private WordSearchRepository wordSearchRepository;
 
+    @Autowired
+    private WordSearchService wordSearchService;
+
+    @Autowired
+    private WordIndexService wordIndexService;
+
+    @Autowired
+    private SearchOutboxService searchOutboxService;
+
+    @Autowired
+    private SearchTombstoneRepository searchTombstoneRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -77,7 +105,8 @@ public class WordResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        WordResource wordResource = new WordResource(wordRepository, wordMapper, wordSearchRepository);
+        WordResource wordResource = new WordResource(wordRepository, wordMapper, wordSearchService, wordIndexService,
+            searchOutboxService);
         this.restWordMockMvc = MockMvcBuilders.standaloneSetup(wordResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -124,7 +153,12 @@ public class WordResourceIntTest {
         assertThat(testWord.getEn()).isEqualTo(DEFAULT_EN);
         assertThat(testWord.getDefinition()).isEqualTo(DEFAULT_DEFINITION);
 
+        // Validate the Word is not in the in-memory index before the transaction commits
+        assertThat(wordIndexService.translate(Language.EN, DEFAULT_EN, 0).getWords())
+            .extracting(WordDTO::getId).doesNotContain(testWord.getId());
+
         // Validate the Word in Elasticsearch
+        searchOutboxService.dispatch();
         Word wordEs = wordSearchRepository.findOne(testWord.getId());
         assertThat(wordEs).isEqualToComparingFieldByField(testWord);
     }
@@ -165,6 +199,57 @@ public class WordResourceIntTest {
             .andExpect(jsonPath("$.[*].definition").value(hasItem(DEFAULT_DEFINITION.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getWordWithCategory() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIntTest.createEntity(em);
+        em.persist(category);
+        wordRepository.saveAndFlush(word.category(category));
+
+        // Get the word in a listing and alone, with its category
+        restWordMockMvc.perform(get("/api/words?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].cat.id").value(hasItem(category.getId().intValue())))
+            .andExpect(jsonPath("$.[*].cat.rus").value(hasItem(category.getRus())));
+        restWordMockMvc.perform(get("/api/words/{id}", word.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cat.id").value(category.getId().intValue()))
+            .andExpect(jsonPath("$.cat.en").value(category.getEn()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllWordsWithCursor() throws Exception {
+        // Initialize the database, the second word has no english term so it comes last when sorting by it
+        wordRepository.saveAndFlush(word);
+        Word other = new Word().rus(UPDATED_RUS).definition(UPDATED_DEFINITION);
+        wordRepository.saveAndFlush(other);
+
+        // Get the first page sorted by the english term
+        MvcResult result = restWordMockMvc.perform(get("/api/words?after=&size=1&sort=en"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.[*].id").value(contains(word.getId().intValue())))
+            .andReturn();
+
+        // Follow the next link
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        String next = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+        restWordMockMvc.perform(get(next))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.[*].id").value(contains(other.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllWordsWithMalformedCursor() throws Exception {
+        restWordMockMvc.perform(get("/api/words?after=notacursor"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getWord() throws Exception {
@@ -219,6 +304,7 @@ public class WordResourceIntTest {
         assertThat(testWord.getDefinition()).isEqualTo(UPDATED_DEFINITION);
 
         // Validate the Word in Elasticsearch
+        searchOutboxService.dispatch();
         Word wordEs = wordSearchRepository.findOne(testWord.getId());
         assertThat(wordEs).isEqualToComparingFieldByField(testWord);
     }
@@ -256,16 +342,21 @@ public class WordResourceIntTest {
             .andExpect(status().isOk());
 
         // Validate Elasticsearch is empty
+        searchOutboxService.dispatch();
         boolean wordExistsInEs = wordSearchRepository.exists(word.getId());
         assertThat(wordExistsInEs).isFalse();
 
         // Validate the database is empty
         List<Word> wordList = wordRepository.findAll();
         assertThat(wordList).hasSize(databaseSizeBeforeDelete - 1);
+
+        // Validate the deletion is left for the incremental reindex
+        assertThat(searchTombstoneRepository.findEntityIdsDeletedSince(EntityType.WORD, Instant.EPOCH)).contains(word.getId());
     }
 
     @Test
     @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
     public void searchWord() throws Exception {
         // Initialize the database
         wordRepository.saveAndFlush(word);
@@ -281,6 +372,190 @@ public class WordResourceIntTest {
             .andExpect(jsonPath("$.[*].definition").value(hasItem(DEFAULT_DEFINITION.toString())));
     }
 
+    @Test
+    @Transactional
+    public void searchWordByInflectedForm() throws Exception {
+        // Create the Word through the API, so that its stems are computed
+        WordDTO wordDTO = wordMapper.toDto(word.rus("слово").en("word"));
+        restWordMockMvc.perform(post("/api/words")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(wordDTO)))
+            .andExpect(status().isCreated());
+        Word testWord = wordRepository.findAll().get(wordRepository.findAll().size() - 1);
+        assertThat(testWord.getRusStem()).isEqualTo("слов");
+
+        searchOutboxService.dispatch();
+        // Search the word with an inflected form
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "словами"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(testWord.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void searchWordByPrefix() throws Exception {
+        // Initialize the database
+        wordRepository.saveAndFlush(word.rus("словарь").en("dictionary"));
+        wordSearchRepository.save(word);
+
+        // Search the word with a prefix of each of its terms, with or without a trailing wildcard
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "слова"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(word.getId().intValue())));
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "dict*"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(word.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchWordWithQueryStringAsUser() throws Exception {
+        restWordMockMvc.perform(get("/api/_search/words?query=id:1"))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchWordWithPunctuationAsUser() throws Exception {
+        // Initialize the database
+        wordRepository.saveAndFlush(word.rus("рок-н-ролл").en("rock&roll"));
+        wordSearchRepository.save(word);
+
+        // Characters reserved by the query string syntax do not make a query string on their own
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "rock&roll"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(word.getId().intValue())));
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "what?"))
+            .andExpect(status().isOk());
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "и/или"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    public void searchWordBeyondLimits() throws Exception {
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "word").param("size", "1000"))
+            .andExpect(status().isBadRequest());
+        restWordMockMvc.perform(get("/api/_search/words").param("query", "word").param("page", "1000").param("size", "20"))
+            .andExpect(status().isBadRequest());
+        restWordMockMvc.perform(get("/api/_search/words").param("term", "a b c d e f g h i"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void searchWordWithFacets() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIntTest.createEntity(em);
+        em.persist(category);
+        wordRepository.saveAndFlush(word.en("faceted").category(category));
+        wordSearchRepository.save(word);
+
+        // Search the word and count its category
+        restWordMockMvc.perform(get("/api/_search/words?query=faceted&facets=true"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, containsString("facets=true")))
+            .andExpect(jsonPath("$.words.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.categories.[*].category.id").value(hasItem(category.getId().intValue())))
+            .andExpect(jsonPath("$.categories.[*].count").value(hasItem(1)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void searchWordWithCursor() throws Exception {
+        // Initialize the database with two words matching the same text
+        wordRepository.saveAndFlush(word.en("scrollable"));
+        wordSearchRepository.save(word);
+        Word other = new Word().rus(UPDATED_RUS).en("scrollable");
+        wordRepository.saveAndFlush(other);
+        wordSearchRepository.save(other);
+
+        // Walk the hits one by one, following the next links
+        MvcResult result = restWordMockMvc.perform(get("/api/_search/words?query=scrollable&after=&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        result = restWordMockMvc.perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andReturn();
+        link = result.getResponse().getHeader(HttpHeaders.LINK);
+        restWordMockMvc.perform(get(link.substring(link.indexOf('<') + 1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    public void searchWordWithMalformedCursor() throws Exception {
+        restWordMockMvc.perform(get("/api/_search/words?query=word&after=notacursor"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    public void searchWordWithCursorAsUser() throws Exception {
+        restWordMockMvc.perform(get("/api/_search/words?query=word&after="))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Transactional
+    public void searchWordByTerm() throws Exception {
+        // Initialize the database
+        Category category = CategoryResourceIntTest.createEntity(em);
+        em.persist(category);
+        wordRepository.saveAndFlush(word.rus("словарь").en("dictionary").category(category));
+        wordSearchRepository.save(word);
+        Long categoryId = category.getId();
+
+        restWordMockMvc.perform(get("/api/_search/words").param("term", "Словарь").param("lang", "ru").param("mode", "exact"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(word.getId().intValue())));
+        restWordMockMvc.perform(get("/api/_search/words").param("term", "dict").param("mode", "prefix")
+            .param("category", categoryId.toString()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(word.getId().intValue())));
+        // The term is only looked up in the given language
+        restWordMockMvc.perform(get("/api/_search/words").param("term", "dictionary").param("lang", "ru").param("mode", "exact"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(word.getId().intValue()))));
+        // The category filters the words
+        restWordMockMvc.perform(get("/api/_search/words").param("term", "dict").param("mode", "prefix")
+            .param("category", String.valueOf(Long.MAX_VALUE)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(word.getId().intValue()))));
+        restWordMockMvc.perform(get("/api/_search/words").param("term", "dict").param("mode", "fuzzy"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void suggestWord() throws Exception {
+        // Initialize the database and the in-memory index
+        wordRepository.saveAndFlush(word);
+        wordIndexService.index(wordMapper.toDto(word));
+
+        // Suggest the word from a prefix of its terms
+        restWordMockMvc.perform(get("/api/_suggest/words?prefix=aaaaa&size=50"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.rus.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.rus.[*].term").value(hasItem(DEFAULT_RUS)))
+            .andExpect(jsonPath("$.en.[*].id").value(hasItem(word.getId().intValue())))
+            .andExpect(jsonPath("$.en.[*].translation").value(hasItem(DEFAULT_RUS)));
+
+        wordIndexService.remove(word.getId());
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {